@@ -1,48 +1,69 @@
 package art.chp8;
 
+import art.chp8.capture.CaptureFormat;
+import art.chp8.capture.FrameRecorder;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
 
 public class Emulator extends ApplicationAdapter {
     private Renderer renderer;
     private Processor processor;
 
-    private static class EmulatorConfig {
-        String romName;
-        int speed;
-    }
+    private static final int CAPTURE_FRAMES_PER_SECOND = 60;
+    private static final int CAPTURE_QUEUE_CAPACITY = 256;
 
-    private EmulatorConfig config;
+    private FrameRecorder recorder;
 
-    private void readConfig () {
-        this.config = new EmulatorConfig();
+    private RunAhead runAhead;
 
-        FileHandle configFile = Gdx.files.internal("emulation_config.xml");
-        if (!configFile.exists()) {
-            throw new RuntimeException("Could not find emulation_config.xml file");
-        }
+    private EmulatorConfig config;
 
-        XmlReader reader = new XmlReader();
-        XmlReader.Element parsed = reader.parse(configFile);
+    private void startCapture () {
+        if (config.captureFormat == null) return;
 
-        config.romName = parsed.get("romName");
-        config.speed = parsed.getInt("emulationSpeed");
+        CaptureFormat format = CaptureFormat.fromName(config.captureFormat);
+        try {
+            recorder = new FrameRecorder(
+                format.open(new File(config.captureOutput), config.captureScale, CAPTURE_FRAMES_PER_SECOND),
+                CAPTURE_QUEUE_CAPACITY
+            );
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Failed to start frame capture: " + config.captureOutput, e);
+        }
     }
 
     @Override
     public void create() {
-        readConfig();
+        config = EmulatorConfig.read();
         renderer = new Renderer();
         processor = new Processor();
         processor.loadROM(config.romName);
+        Gdx.input.setInputProcessor(processor.getKeypad());
+        startCapture();
+
+        if (config.runAhead > 0) {
+            runAhead = new RunAhead(config.runAhead, config.speed);
+        }
     }
 
     @Override
     public void render () {
         for (int i = 0; i < config.speed; i++) {
             processor.tick();
+        }
+
+        // captures always show the real frame, never the run-ahead one
+        if (recorder != null) {
+            recorder.capture(processor);
+        }
+
+        if (runAhead != null) {
+            runAhead.present(processor, renderer);
+        } else {
             renderer.draw(processor.getPixels());
         }
     }
@@ -50,6 +71,14 @@ public class Emulator extends ApplicationAdapter {
     @Override
     public void dispose() {
         renderer.dispose();
+
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                Gdx.app.error("Emulator", "Failed to write captured frames", e);
+            }
+        }
     }
 
     @Override
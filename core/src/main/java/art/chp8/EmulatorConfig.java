@@ -0,0 +1,34 @@
+package art.chp8;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.XmlReader;
+
+class EmulatorConfig {
+    String romName;
+    int speed;
+    String captureFormat;
+    String captureOutput;
+    int captureScale;
+    int runAhead;
+
+    static EmulatorConfig read () {
+        EmulatorConfig config = new EmulatorConfig();
+
+        FileHandle configFile = Gdx.files.internal("emulation_config.xml");
+        if (!configFile.exists()) {
+            throw new RuntimeException("Could not find emulation_config.xml file");
+        }
+
+        XmlReader reader = new XmlReader();
+        XmlReader.Element parsed = reader.parse(configFile);
+
+        config.romName = parsed.get("romName");
+        config.speed = parsed.getInt("emulationSpeed");
+        config.captureFormat = parsed.get("captureFormat", null);
+        config.captureOutput = parsed.get("captureOutput", "captures");
+        config.captureScale = parsed.getInt("captureScale", 4);
+        config.runAhead = parsed.getInt("runAhead", 0);
+        return config;
+    }
+}
@@ -1,14 +1,17 @@
 package art.chp8;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputAdapter;
 import com.badlogic.gdx.utils.IntIntMap;
-import com.badlogic.gdx.utils.IntSet;
 
 public class Keypad extends InputAdapter {
-    private final IntIntMap keyMapping = new IntIntMap();
-    private final IntSet pressedKeys = new IntSet();
+    // shared by all instances, so a keypad costs only its pressed mask
+    private static final IntIntMap keyMapping = new IntIntMap();
+
+    /*
+    Bit n is set while key n is held down
+     */
+    private int pressedMask;
 
     public final static int[] keys = {
         0x0, 0x1, 0x2, 0x3,
@@ -17,12 +20,14 @@ public class Keypad extends InputAdapter {
         0xC, 0xD, 0xE, 0xF
     };
 
+    /*
+    Input is not registered here so a Processor can run without a libGDX backend (headless runs).
+    Call Gdx.input.setInputProcessor(keypad) from the application to receive key events.
+     */
     public Keypad () {
-        Gdx.input.setInputProcessor(this);
-        initMapping();
     }
 
-    private void initMapping () {
+    static {
         keyMapping.put(Input.Keys.NUM_1, keys[0x1]);
         keyMapping.put(Input.Keys.NUM_2, keys[0x2]);
         keyMapping.put(Input.Keys.NUM_3, keys[0x3]);
@@ -48,7 +53,7 @@ public class Keypad extends InputAdapter {
     public boolean keyDown(int keycode) {
         int mappedKey = keyMapping.get(keycode, -1);
         if (mappedKey != -1) {
-            pressedKeys.add(mappedKey);
+            pressedMask |= 1 << mappedKey;
             return true;
         }
         return super.keyDown(keycode);
@@ -57,13 +62,30 @@ public class Keypad extends InputAdapter {
     @Override
     public boolean keyUp(int keycode) {
         int mappedKey = keyMapping.get(keycode, -1);
-        if (pressedKeys.remove(mappedKey)) {
+        if (mappedKey != -1 && (pressedMask & (1 << mappedKey)) != 0) {
+            pressedMask &= ~(1 << mappedKey);
             return true;
         }
         return super.keyUp(keycode);
     }
 
     public boolean isKeyDown (int key) {
-        return pressedKeys.contains(key);
+        if (key < 0 || key >= keys.length) {
+            return false;
+        }
+        return (pressedMask & (1 << key)) != 0;
+    }
+
+    public int getPressedMask () {
+        return pressedMask;
+    }
+
+    /***
+     * Replaces the state of all keys at once, for input that does not come from libGDX (e.g. remote clients)
+     *
+     * @param mask Bit n set means key n is down
+     */
+    public void setPressedMask (int mask) {
+        this.pressedMask = mask & 0xFFFF;
     }
 }
@@ -0,0 +1,118 @@
+package art.chp8;
+
+import java.util.Arrays;
+
+/*
+Byte-addressed memory split into 256 byte pages, with a write epoch per page recording when it was last written.
+
+Addresses wrap at the end of memory (they are masked, so there is no bounds check on any access). The size must be a
+power of two: 4 KB gives CHIP-8's 12-bit address space, 64 KB the XO-CHIP one.
+
+The epochs let any number of snapshots copy only the pages that changed since each of them was last in sync with this
+memory: a snapshot remembers the epoch returned by nextEpoch when it synced, and every page written later carries a
+higher epoch. See Processor.saveStateIncremental.
+ */
+public class Memory {
+    public static final int PAGE_SHIFT = 8;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private final byte[] data;
+    private final int mask;
+    private final long[] pageEpochs;
+    private long epoch = 1;
+
+    public Memory (int size) {
+        if (size < PAGE_SIZE || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Memory size must be a power of two of at least " + PAGE_SIZE + ": " + size);
+        }
+        data = new byte[size];
+        mask = size - 1;
+        pageEpochs = new long[size >>> PAGE_SHIFT];
+    }
+
+    public byte read (int address) {
+        return data[address & mask];
+    }
+
+    public void write (int address, int value) {
+        int masked = address & mask;
+        data[masked] = (byte) value;
+        pageEpochs[masked >>> PAGE_SHIFT] = epoch;
+    }
+
+    /***
+     * Copies a block into memory, e.g. a ROM or the font set. The block must fit without wrapping.
+     */
+    public void load (byte[] source, int address) {
+        System.arraycopy(source, 0, data, address, source.length);
+        if (source.length == 0) return;
+        int lastPage = (address + source.length - 1) >>> PAGE_SHIFT;
+        for (int page = address >>> PAGE_SHIFT; page <= lastPage; page++) {
+            pageEpochs[page] = epoch;
+        }
+    }
+
+    public int size () {
+        return data.length;
+    }
+
+    public int pageCount () {
+        return pageEpochs.length;
+    }
+
+    /***
+     * Ends the current write epoch.
+     *
+     * @return The epoch that just ended: pages written before this call have an epoch no higher than it, pages written
+     * afterwards a higher one
+     */
+    public long nextEpoch () {
+        return epoch++;
+    }
+
+    public boolean isPageWrittenSince (int page, long since) {
+        return pageEpochs[page] > since;
+    }
+
+    public int pagesWrittenSince (long since) {
+        int count = 0;
+        for (long pageEpoch : pageEpochs) {
+            if (pageEpoch > since) count++;
+        }
+        return count;
+    }
+
+    public void copyTo (byte[] destination) {
+        System.arraycopy(data, 0, destination, 0, data.length);
+    }
+
+    // Overwrites all of memory, every page counts as written
+    public void copyFrom (byte[] source) {
+        System.arraycopy(source, 0, data, 0, data.length);
+        Arrays.fill(pageEpochs, epoch);
+    }
+
+    // Copies only the pages written after the given epoch into destination
+    public void copyPagesWrittenSince (long since, byte[] destination) {
+        for (int page = 0; page < pageEpochs.length; page++) {
+            if (pageEpochs[page] > since) {
+                int offset = page << PAGE_SHIFT;
+                System.arraycopy(data, offset, destination, offset, PAGE_SIZE);
+            }
+        }
+    }
+
+    /*
+    Overwrites only the pages written after the given epoch from source, undoing the writes since source was in sync.
+    The pages copied back count as written, so other snapshots see the change.
+     */
+    public void restorePagesWrittenSince (long since, byte[] source) {
+        for (int page = 0; page < pageEpochs.length; page++) {
+            if (pageEpochs[page] > since) {
+                int offset = page << PAGE_SHIFT;
+                System.arraycopy(source, offset, data, offset, PAGE_SIZE);
+                pageEpochs[page] = epoch;
+            }
+        }
+    }
+}
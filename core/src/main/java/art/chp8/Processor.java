@@ -3,6 +3,7 @@ package art.chp8;
 import art.chp8.instructions.Instruction;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 
 
@@ -12,20 +13,27 @@ public class Processor {
     public static final int FONT_LOAD_START_ADDRESS = 0x50;
     public static final int FONT_SIZE_BYTES = 5;
 
+    public static final int MEMORY_SIZE = 4096;
+
     public static final int SCREEN_WIDTH = 64;
     public static final int SCREEN_HEIGHT = 32;
 
     public static final int SPRITE_WIDTH = 8;
 
+    /*
+    Size of the framebuffer packed one bit per pixel, see packPixels
+     */
+    public static final int PACKED_PIXELS_BYTES = SCREEN_WIDTH * SCREEN_HEIGHT / 8;
+
     /*
     64x32 pixel display
     */
     private final boolean[][] pixels = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
 
     /*
-    Total memory (4KB in size)
+    Total memory (4KB in size), addresses wrap around at the end
      */
-    private final byte[] memory = new byte[4096];
+    private final Memory memory;
 
     /*
     General purpose "V" registers that range from 0x00 to 0x10
@@ -66,7 +74,21 @@ public class Processor {
 
     private final Keypad keypad;
 
+    /*
+    Source for Cxkk. Owned by the processor (rather than MathUtils.random) so saved states replay identically.
+     */
+    private final RandomXS128 random = new RandomXS128();
+
     public Processor() {
+        this(MEMORY_SIZE);
+    }
+
+    /***
+     *
+     * @param memorySize Power of two, MEMORY_SIZE for CHIP-8 (larger for extensions such as XO-CHIP)
+     */
+    public Processor(int memorySize) {
+        memory = new Memory(memorySize);
         programCounter = START_ADDRESS;
         loadInternalFonts();
         keypad = new Keypad();
@@ -93,21 +115,21 @@ public class Processor {
 
     public void pushStack (int value) {
         if (stackPointer >= stack.length) {
-            throw new IllegalStateException("Stack overflow");
+            throw new StackOverflowException();
         }
         stack[stackPointer++] = value;
     }
 
     public int popStack () {
         if (stackPointer <= 0) {
-            throw new IllegalStateException("Stack underflow");
+            throw new StackUnderflowException();
         }
         return stack[--stackPointer];
     }
 
     public int fetchCurrentInstruction () {
-        int b1 = memory[programCounter] & 0xFF;
-        int b2 = memory[programCounter + 1] & 0xFF;
+        int b1 = memory.read(programCounter) & 0xFF;
+        int b2 = memory.read(programCounter + 1) & 0xFF;
 
         // Shift high byte to left and combine 1st and 2nd bytes at program counter to get the instruction
         int combinedOpcode = (b1 << 8) | b2;
@@ -120,11 +142,11 @@ public class Processor {
 
     private void loadInternalFonts () {
         for (int i = 0; i < fonts.length; i++) {
-            memory[FONT_LOAD_START_ADDRESS + i] = (byte) fonts[i];
+            memory.write(FONT_LOAD_START_ADDRESS + i, fonts[i]);
         }
     }
 
-    private final int[] fonts = {
+    private static final int[] fonts = {
             0xF0, 0x90, 0x90, 0x90, 0xF0, // 0
             0x20, 0x60, 0x20, 0x20, 0x70, // 1
             0xF0, 0x10, 0xF0, 0x80, 0xF0, // 2
@@ -155,13 +177,23 @@ public class Processor {
         }
 
         try {
-            byte[] romBytes = romFile.readBytes();
-            System.arraycopy(romBytes, 0, memory, START_ADDRESS, romBytes.length);
+            loadROM(romFile.readBytes());
         } catch (Exception e) {
             throw new GdxRuntimeException("Failed to load ROM: " + romFile.path(), e);
         }
     }
 
+    /***
+     *
+     * @param romBytes Raw contents of a .ch8 file, copied into memory at the program start address
+     */
+    public void loadROM (byte[] romBytes) {
+        if (romBytes.length > memory.size() - START_ADDRESS) {
+            throw new GdxRuntimeException("ROM too large: " + romBytes.length + " bytes");
+        }
+        memory.load(romBytes, START_ADDRESS);
+    }
+
     public void skipNextInstruction () {
         this.programCounter += 2;
     }
@@ -174,18 +206,48 @@ public class Processor {
         return pixels;
     }
 
-    public byte readMemory (int address) {
-        if (address < 0 || address > memory.length - 1) {
-            throw new UnsupportedOperationException("Memory address out of bounds");
+    /***
+     * Packs the framebuffer one bit per pixel, row by row from the top, most significant bit leftmost.
+     * This matches the layout of a 1-bit BufferedImage / PNG scanline.
+     *
+     * @param out Array of at least PACKED_PIXELS_BYTES bytes
+     */
+    public void packPixels (byte[] out) {
+        int index = 0;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x += 8) {
+                int packed = 0;
+                for (int bit = 0; bit < 8; bit++) {
+                    packed = (packed << 1) | (pixels[x + bit][y] ? 1 : 0);
+                }
+                out[index++] = (byte) packed;
+            }
         }
-        return memory[address];
     }
 
-    public void writeMemory (int address, int value) {
-        if (address < 0 || address > memory.length - 1) {
-            throw new UnsupportedOperationException("Memory address out of bounds");
+    private void unpackPixels (byte[] packed) {
+        int index = 0;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x += 8) {
+                int bits = packed[index++];
+                for (int bit = 0; bit < 8; bit++) {
+                    pixels[x + bit][y] = (bits & (0x80 >>> bit)) != 0;
+                }
+            }
         }
-        memory[address] = (byte) value;
+    }
+
+    // Addresses past the end of memory wrap around
+    public byte readMemory (int address) {
+        return memory.read(address);
+    }
+
+    public void writeMemory (int address, int value) {
+        memory.write(address, value);
+    }
+
+    public Memory getMemory () {
+        return memory;
     }
 
     public byte[] getVRegisters() {
@@ -201,7 +263,7 @@ public class Processor {
     }
 
     public void setST(byte ST) {
-        this.ST = ST;
+        this.ST = ST & 0xFF;
     }
 
     public int getDT() {
@@ -209,7 +271,7 @@ public class Processor {
     }
 
     public void setDT(byte DT) {
-        this.DT = DT;
+        this.DT = DT & 0xFF;
     }
 
     public void setProgramCounter (int value) {
@@ -219,4 +281,94 @@ public class Processor {
     public Keypad getKeypad () {
         return this.keypad;
     }
+
+    public RandomXS128 getRandom () {
+        return random;
+    }
+
+    /***
+     * Copies the complete machine state into state. The keypad is input, not machine state, and is left out.
+     *
+     * @param state Destination, can be reused between calls
+     */
+    public void saveState (ProcessorState state) {
+        checkMemorySize(state);
+        memory.copyTo(state.memory);
+        saveRegisters(state);
+        markSynced(state);
+    }
+
+    /***
+     * Like saveState, but only copies the memory pages written since this processor last saved to or restored from
+     * this same state. Other states saved or restored in between do not interfere. If state was last synced with
+     * another processor, or never, everything is copied.
+     * state.memory must not be modified elsewhere in between (e.g. a run-ahead or rewind buffer owned by the caller).
+     */
+    public void saveStateIncremental (ProcessorState state) {
+        if (state.syncedMemory != memory) {
+            saveState(state);
+            return;
+        }
+        memory.copyPagesWrittenSince(state.syncedEpoch, state.memory);
+        saveRegisters(state);
+        markSynced(state);
+    }
+
+    public void restoreState (ProcessorState state) {
+        checkMemorySize(state);
+        memory.copyFrom(state.memory);
+        restoreRegisters(state);
+        markSynced(state);
+    }
+
+    /***
+     * Like restoreState, but only copies back the memory pages written since this processor last saved to or restored
+     * from this same state, falling back to a full restore like saveStateIncremental does.
+     * state.memory must not be modified elsewhere in between.
+     */
+    public void restoreStateIncremental (ProcessorState state) {
+        if (state.syncedMemory != memory) {
+            restoreState(state);
+            return;
+        }
+        memory.restorePagesWrittenSince(state.syncedEpoch, state.memory);
+        restoreRegisters(state);
+        markSynced(state);
+    }
+
+    private void markSynced (ProcessorState state) {
+        state.syncedMemory = memory;
+        state.syncedEpoch = memory.nextEpoch();
+    }
+
+    private void checkMemorySize (ProcessorState state) {
+        if (state.memory.length != memory.size()) {
+            throw new IllegalArgumentException("State memory size " + state.memory.length + " does not match " + memory.size());
+        }
+    }
+
+    private void saveRegisters (ProcessorState state) {
+        System.arraycopy(vRegisters, 0, state.vRegisters, 0, vRegisters.length);
+        System.arraycopy(stack, 0, state.stack, 0, stack.length);
+        packPixels(state.pixels);
+        state.indexRegister = iRegister;
+        state.programCounter = programCounter;
+        state.stackPointer = stackPointer;
+        state.delayTimer = DT;
+        state.soundTimer = ST;
+        state.randomState0 = random.getState(0);
+        state.randomState1 = random.getState(1);
+    }
+
+    private void restoreRegisters (ProcessorState state) {
+        System.arraycopy(state.vRegisters, 0, vRegisters, 0, vRegisters.length);
+        System.arraycopy(state.stack, 0, stack, 0, stack.length);
+        unpackPixels(state.pixels);
+        iRegister = state.indexRegister;
+        programCounter = state.programCounter;
+        stackPointer = state.stackPointer;
+        DT = state.delayTimer;
+        ST = state.soundTimer;
+        random.setState(state.randomState0, state.randomState1);
+    }
 }
@@ -0,0 +1,88 @@
+package art.chp8;
+
+import java.util.Arrays;
+
+/*
+Everything that decides how a Processor continues: memory, registers, stack, timers, framebuffer and random generator.
+Filled by Processor.saveState and applied by Processor.restoreState. Instances are meant to be reused, so saving
+a state does not allocate.
+ */
+public class ProcessorState {
+    public final byte[] memory;
+    public final byte[] vRegisters = new byte[16];
+    public final int[] stack = new int[16];
+
+    /*
+    Framebuffer in the Processor.packPixels layout
+     */
+    public final byte[] pixels = new byte[Processor.PACKED_PIXELS_BYTES];
+
+    public int indexRegister;
+    public int programCounter;
+    public int stackPointer;
+    public int delayTimer;
+    public int soundTimer;
+
+    public long randomState0;
+    public long randomState1;
+
+    /*
+    Which memory this state was last saved from or restored into, and the memory's epoch at that moment.
+    Lets Processor.saveStateIncremental/restoreStateIncremental copy only the pages written since.
+     */
+    Memory syncedMemory;
+    long syncedEpoch;
+
+    public ProcessorState () {
+        this(Processor.MEMORY_SIZE);
+    }
+
+    public ProcessorState (int memorySize) {
+        memory = new byte[memorySize];
+    }
+
+    public void copyFrom (ProcessorState other) {
+        System.arraycopy(other.memory, 0, memory, 0, memory.length);
+        System.arraycopy(other.vRegisters, 0, vRegisters, 0, vRegisters.length);
+        System.arraycopy(other.stack, 0, stack, 0, stack.length);
+        System.arraycopy(other.pixels, 0, pixels, 0, pixels.length);
+        indexRegister = other.indexRegister;
+        programCounter = other.programCounter;
+        stackPointer = other.stackPointer;
+        delayTimer = other.delayTimer;
+        soundTimer = other.soundTimer;
+        randomState0 = other.randomState0;
+        randomState1 = other.randomState1;
+        // same contents, but not the same history: the next incremental save or restore copies everything
+        syncedMemory = null;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProcessorState)) return false;
+
+        ProcessorState other = (ProcessorState) o;
+        return indexRegister == other.indexRegister
+            && programCounter == other.programCounter
+            && stackPointer == other.stackPointer
+            && delayTimer == other.delayTimer
+            && soundTimer == other.soundTimer
+            && randomState0 == other.randomState0
+            && randomState1 == other.randomState1
+            && Arrays.equals(vRegisters, other.vRegisters)
+            && Arrays.equals(stack, other.stack)
+            && Arrays.equals(pixels, other.pixels)
+            && Arrays.equals(memory, other.memory);
+    }
+
+    @Override
+    public int hashCode () {
+        int result = Arrays.hashCode(memory);
+        result = 31 * result + Arrays.hashCode(vRegisters);
+        result = 31 * result + Arrays.hashCode(pixels);
+        result = 31 * result + programCounter;
+        result = 31 * result + indexRegister;
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package art.chp8;
+
+import com.badlogic.gdx.Gdx;
+
+/*
+Hides input latency by presenting a frame from the future.
+After each real frame the processor is saved, emulated a few frames further with the keys currently held, drawn, and
+restored, so a key press shows up on screen in the same host frame it was read in. Only the real frames ever advance the
+emulation; the future frames are thrown away.
+
+Save and restore are incremental: the saved state is owned here and only touched by this processor, so only the memory
+pages written since the last sync have to be copied (see Processor.saveStateIncremental).
+The extra CPU time is bounded by a per-frame budget; when it runs out, or the future frames fail, the frame reached so far
+is presented instead.
+ */
+public class RunAhead {
+    public static final int MAX_FRAMES = 8;
+
+    private static final long BUDGET_NANOS = 4_000_000L;
+    private static final int LOG_INTERVAL_FRAMES = 600;
+
+    private final int frames;
+    private final int ticksPerFrame;
+    private final ProcessorState saved = new ProcessorState();
+    private boolean synced;
+
+    private long totalNanos;
+    private long maxNanos;
+    private int loggedFrames;
+    private int shortenedFrames;
+
+    /***
+     *
+     * @param frames How many frames ahead to present, clamped to MAX_FRAMES
+     * @param ticksPerFrame Instructions executed in one frame
+     */
+    public RunAhead (int frames, int ticksPerFrame) {
+        this.frames = Math.max(0, Math.min(frames, MAX_FRAMES));
+        this.ticksPerFrame = ticksPerFrame;
+    }
+
+    public int getFrames () {
+        return frames;
+    }
+
+    /***
+     * Draws the frame the processor will show `frames` frames from now, leaving the processor as it was.
+     * The processor must not be changed by anything else between calls (other than by emulating it).
+     */
+    public void present (Processor processor, Renderer renderer) {
+        long started = System.nanoTime();
+
+        if (synced) {
+            processor.saveStateIncremental(saved);
+        } else {
+            processor.saveState(saved);
+            synced = true;
+        }
+
+        boolean shortened = false;
+        try {
+            for (int frame = 0; frame < frames; frame++) {
+                if (frame > 0 && System.nanoTime() - started > BUDGET_NANOS) {
+                    shortened = true;
+                    break;
+                }
+                for (int i = 0; i < ticksPerFrame; i++) {
+                    processor.tick();
+                }
+            }
+        } catch (RuntimeException e) {
+            // only a guess at the future: if the real frames get there, they report the error
+            shortened = true;
+        }
+
+        try {
+            renderer.draw(processor.getPixels());
+        } finally {
+            processor.restoreStateIncremental(saved);
+        }
+
+        record(System.nanoTime() - started, shortened);
+    }
+
+    private void record (long nanos, boolean shortened) {
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        loggedFrames++;
+        if (shortened) shortenedFrames++;
+
+        if (loggedFrames < LOG_INTERVAL_FRAMES) return;
+
+        Gdx.app.log("RunAhead", String.format(
+            "%d frames ahead: %.1f us/frame average, %.1f us max, %d of %d frames cut short",
+            frames, totalNanos / 1000.0 / loggedFrames, maxNanos / 1000.0, shortenedFrames, loggedFrames
+        ));
+        totalNanos = 0;
+        maxNanos = 0;
+        loggedFrames = 0;
+        shortenedFrames = 0;
+    }
+}
@@ -0,0 +1,12 @@
+package art.chp8;
+
+/*
+Thrown by 2nnn when all 16 stack levels are in use
+ */
+public class StackOverflowException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public StackOverflowException () {
+        super("Stack overflow");
+    }
+}
@@ -0,0 +1,12 @@
+package art.chp8;
+
+/*
+Thrown by 00EE when there is no subroutine to return from
+ */
+public class StackUnderflowException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public StackUnderflowException () {
+        super("Stack underflow");
+    }
+}
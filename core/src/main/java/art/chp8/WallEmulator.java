@@ -0,0 +1,235 @@
+package art.chp8;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Runs many emulators side by side in one window (monitoring, attract mode). No keyboard input goes to the instances.
+
+All instances share one texture atlas that is drawn with a single SpriteBatch draw call. Each frame the CPUs are stepped on
+a worker pool, then only the framebuffer rows that changed since the last upload are written into the atlas, so the
+per-frame cost follows how much of the wall actually changes rather than how many instances there are.
+ */
+public class WallEmulator extends ApplicationAdapter {
+    // black border between tiles, in CHIP-8 pixels
+    private static final int GUTTER = 2;
+    private static final int TILE_WIDTH = Processor.SCREEN_WIDTH + GUTTER;
+    private static final int TILE_HEIGHT = Processor.SCREEN_HEIGHT + GUTTER;
+    private static final int ROW_BYTES = Processor.SCREEN_WIDTH / 8;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final String[] romNames;
+    private final int instanceCount;
+
+    private EmulatorConfig config;
+    private Processor[] processors;
+    private Exception[] failures;
+    private boolean[] failureReported;
+
+    // packed framebuffers: latest emulated frame, and what the atlas currently shows
+    private byte[][] frames;
+    private byte[][] uploaded;
+
+    private int columns;
+    private Texture atlas;
+    private ByteBuffer uploadBuffer;
+    private SpriteBatch batch;
+    private FitViewport viewport;
+
+    private ExecutorService workers;
+    private List<Callable<Void>> stepTasks;
+
+    /***
+     *
+     * @param romNames ROMs from the assets roms folder, assigned to instances in turn. Empty to use the configured ROM
+     * @param instanceCount Number of emulators on the wall
+     */
+    public WallEmulator (String[] romNames, int instanceCount) {
+        if (instanceCount < 1) {
+            throw new IllegalArgumentException("Instance count must be positive: " + instanceCount);
+        }
+        this.romNames = romNames;
+        this.instanceCount = instanceCount;
+    }
+
+    @Override
+    public void create () {
+        config = EmulatorConfig.read();
+        String[] roms = romNames.length > 0 ? romNames : new String[]{config.romName};
+
+        processors = new Processor[instanceCount];
+        failures = new Exception[instanceCount];
+        failureReported = new boolean[instanceCount];
+        frames = new byte[instanceCount][Processor.PACKED_PIXELS_BYTES];
+        uploaded = new byte[instanceCount][Processor.PACKED_PIXELS_BYTES];
+
+        for (int i = 0; i < instanceCount; i++) {
+            processors[i] = new Processor();
+            processors[i].loadROM(roms[i % roms.length]);
+        }
+
+        columns = (int) Math.ceil(Math.sqrt(instanceCount));
+        int rows = (instanceCount + columns - 1) / columns;
+        int atlasWidth = columns * TILE_WIDTH;
+        int atlasHeight = rows * TILE_HEIGHT;
+
+        Pixmap blank = new Pixmap(atlasWidth, atlasHeight, Pixmap.Format.RGBA8888);
+        blank.setColor(Color.BLACK);
+        blank.fill();
+        atlas = new Texture(blank);
+        atlas.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        blank.dispose();
+
+        uploadBuffer = BufferUtils.newByteBuffer(Processor.SCREEN_WIDTH * Processor.SCREEN_HEIGHT * BYTES_PER_PIXEL);
+        batch = new SpriteBatch();
+        viewport = new FitViewport(atlasWidth, atlasHeight);
+
+        createWorkers();
+    }
+
+    private void createWorkers () {
+        int threads = Math.min(instanceCount, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wall-cpu-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // each task takes every n-th instance, which spreads ROMs of different cost evenly
+        stepTasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int first = t;
+            stepTasks.add(() -> {
+                for (int i = first; i < instanceCount; i += threads) {
+                    step(i);
+                }
+                return null;
+            });
+        }
+    }
+
+    private void step (int index) {
+        if (failures[index] != null) return;
+
+        Processor processor = processors[index];
+        try {
+            for (int i = 0; i < config.speed; i++) {
+                processor.tick();
+            }
+        } catch (Exception e) {
+            // a crashed instance keeps showing its last frame
+            failures[index] = e;
+        }
+        processor.packPixels(frames[index]);
+    }
+
+    @Override
+    public void render () {
+        try {
+            for (Future<Void> result : workers.invokeAll(stepTasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Wall worker failed", e.getCause());
+        }
+
+        reportFailures();
+        uploadChangedRows();
+
+        ScreenUtils.clear(0f, 0f, 0f, 1f);
+        viewport.apply();
+        batch.setProjectionMatrix(viewport.getCamera().combined);
+        batch.begin();
+        batch.draw(atlas, 0, 0, viewport.getWorldWidth(), viewport.getWorldHeight());
+        batch.end();
+    }
+
+    private void uploadChangedRows () {
+        boolean bound = false;
+
+        for (int i = 0; i < instanceCount; i++) {
+            byte[] frame = frames[i];
+            byte[] shown = uploaded[i];
+
+            int firstRow = -1;
+            int lastRow = -1;
+            for (int row = 0; row < Processor.SCREEN_HEIGHT; row++) {
+                if (!Arrays.equals(frame, row * ROW_BYTES, (row + 1) * ROW_BYTES, shown, row * ROW_BYTES, (row + 1) * ROW_BYTES)) {
+                    if (firstRow < 0) firstRow = row;
+                    lastRow = row;
+                }
+            }
+            if (firstRow < 0) continue;
+
+            if (!bound) {
+                atlas.bind();
+                Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+                bound = true;
+            }
+
+            uploadBuffer.clear();
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int b = row * ROW_BYTES; b < (row + 1) * ROW_BYTES; b++) {
+                    int packed = frame[b];
+                    for (int bit = 7; bit >= 0; bit--) {
+                        byte value = (byte) (((packed >> bit) & 1) != 0 ? 0xFF : 0x00);
+                        uploadBuffer.put(value).put(value).put(value).put((byte) 0xFF);
+                    }
+                }
+            }
+            uploadBuffer.flip();
+
+            int x = (i % columns) * TILE_WIDTH + GUTTER / 2;
+            int y = (i / columns) * TILE_HEIGHT + GUTTER / 2 + firstRow;
+            Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, x, y, Processor.SCREEN_WIDTH, lastRow - firstRow + 1,
+                GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, uploadBuffer);
+
+            System.arraycopy(frame, firstRow * ROW_BYTES, shown, firstRow * ROW_BYTES, (lastRow - firstRow + 1) * ROW_BYTES);
+        }
+    }
+
+    private void reportFailures () {
+        for (int i = 0; i < instanceCount; i++) {
+            if (failures[i] != null && !failureReported[i]) {
+                failureReported[i] = true;
+                Gdx.app.error("WallEmulator", "Instance " + i + " stopped", failures[i]);
+            }
+        }
+    }
+
+    @Override
+    public void resize (int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void dispose () {
+        workers.shutdownNow();
+        batch.dispose();
+        atlas.dispose();
+    }
+}
@@ -0,0 +1,37 @@
+package art.chp8.capture;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+public enum CaptureFormat {
+    /*
+    One PNG per distinct frame, written into the output directory
+     */
+    PNG {
+        @Override
+        public FrameEncoder open (File output, int scale, int framesPerSecond) throws IOException {
+            return new PngSequenceEncoder(output, scale);
+        }
+    },
+
+    /*
+    A single animated GIF at the output path
+     */
+    GIF {
+        @Override
+        public FrameEncoder open (File output, int scale, int framesPerSecond) throws IOException {
+            return new GifEncoder(output, scale, framesPerSecond);
+        }
+    };
+
+    public abstract FrameEncoder open (File output, int scale, int framesPerSecond) throws IOException;
+
+    public static CaptureFormat fromName (String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown capture format: " + name);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package art.chp8.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface FrameEncoder extends Closeable {
+    /***
+     *
+     * @param packedPixels Framebuffer in the Processor.packPixels layout, only valid during the call
+     * @param firstFrame Number of the frame in which this image first appeared
+     * @param frameCount How many consecutive frames the image stayed on screen
+     */
+    void encode (byte[] packedPixels, long firstFrame, long frameCount) throws IOException;
+}
@@ -0,0 +1,16 @@
+package art.chp8.capture;
+
+public class FrameHash {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // FNV-1a over a packed framebuffer (see Processor.packPixels)
+    public static long hash (byte[] packedPixels) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte value : packedPixels) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,35 @@
+package art.chp8.capture;
+
+import art.chp8.Processor;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+class FrameImages {
+    private final BufferedImage frame;
+    private final BufferedImage scaled;
+
+    FrameImages (int scale) {
+        frame = new BufferedImage(Processor.SCREEN_WIDTH, Processor.SCREEN_HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+        scaled = scale == 1
+            ? frame
+            : new BufferedImage(Processor.SCREEN_WIDTH * scale, Processor.SCREEN_HEIGHT * scale, BufferedImage.TYPE_BYTE_BINARY);
+    }
+
+    // Returns an image reused between calls
+    BufferedImage toImage (byte[] packedPixels) {
+        // a 1-bit BufferedImage stores its scanlines exactly like packPixels does
+        byte[] raster = ((DataBufferByte) frame.getRaster().getDataBuffer()).getData();
+        System.arraycopy(packedPixels, 0, raster, 0, Processor.PACKED_PIXELS_BYTES);
+
+        if (scaled != frame) {
+            Graphics2D graphics = scaled.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            graphics.drawImage(frame, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
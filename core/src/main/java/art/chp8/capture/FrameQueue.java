@@ -0,0 +1,86 @@
+package art.chp8.capture;
+
+import art.chp8.Processor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Bounded single-producer / single-consumer ring of packed frames.
+Slots are allocated up front, so offering a frame is a 256 byte copy and two volatile accesses - no locks, no allocation.
+ */
+public class FrameQueue {
+    private final byte[][] frames;
+    private final long[] frameNumbers;
+    private final int mask;
+
+    // next slot the consumer reads, only advanced by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // next slot the producer writes, only advanced by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    /***
+     *
+     * @param capacity Number of frames that can be queued, rounded up to a power of two
+     */
+    public FrameQueue (int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        if (size == 0) size = 1;
+
+        frames = new byte[size][Processor.PACKED_PIXELS_BYTES];
+        frameNumbers = new long[size];
+        mask = size - 1;
+    }
+
+    /***
+     * Producer side. Never blocks.
+     *
+     * @return false if the queue is full and the frame was not taken
+     */
+    public boolean offer (Processor processor, long frameNumber) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() == frames.length) {
+            return false;
+        }
+
+        int slot = (int) (currentTail & mask);
+        processor.packPixels(frames[slot]);
+        frameNumbers[slot] = frameNumber;
+
+        // publishes the slot contents to the consumer
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /***
+     * Consumer side.
+     *
+     * @return slot index of the oldest queued frame, or -1 if the queue is empty
+     */
+    public int peek () {
+        long currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return -1;
+        }
+        return (int) (currentHead & mask);
+    }
+
+    public byte[] frame (int slot) {
+        return frames[slot];
+    }
+
+    public long frameNumber (int slot) {
+        return frameNumbers[slot];
+    }
+
+    // Consumer side. Hands the slot returned by peek back to the producer.
+    public void release () {
+        head.lazySet(head.get() + 1);
+    }
+
+    public boolean isEmpty () {
+        return head.get() == tail.get();
+    }
+}
@@ -0,0 +1,186 @@
+package art.chp8.capture;
+
+import art.chp8.Processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Records frames to disk on a background thread.
+The emulation thread only packs the framebuffer into a preallocated queue slot (see FrameQueue). Hashing, de-duplication
+and encoding all happen on the recorder thread. If the encoder falls behind and the queue fills up, frames are dropped
+rather than stalling emulation; the frame numbers keep the timing of what was recorded correct.
+Unpaced users that need every frame (e.g. headless regression runs) can ask capture to wait for a free slot instead;
+the emulation thread then only waits, it still never encodes or touches the disk itself.
+ */
+public class FrameRecorder implements Closeable {
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private final FrameQueue queue;
+    private final FrameEncoder encoder;
+    private final Thread thread;
+    private final boolean waitWhenFull;
+
+    private volatile boolean closed;
+    private IOException failure;
+
+    // written by the emulation thread
+    private long nextFrameNumber;
+    private volatile long droppedFrames;
+    private volatile Thread waitingProducer;
+
+    // written by the recorder thread
+    private final byte[] pendingFrame = new byte[Processor.PACKED_PIXELS_BYTES];
+    private boolean hasPendingFrame;
+    private long pendingHash;
+    private long pendingFrameNumber;
+    private volatile long encodedFrames;
+    private volatile long duplicateFrames;
+
+    public FrameRecorder (FrameEncoder encoder, int queueCapacity) {
+        this(encoder, queueCapacity, false);
+    }
+
+    /***
+     *
+     * @param waitWhenFull If true, capture waits for the recorder to free a slot instead of dropping the frame
+     */
+    public FrameRecorder (FrameEncoder encoder, int queueCapacity, boolean waitWhenFull) {
+        this.queue = new FrameQueue(queueCapacity);
+        this.encoder = encoder;
+        this.waitWhenFull = waitWhenFull;
+        this.thread = new Thread(this::drain, "frame-recorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /***
+     * Emulation thread. Snapshots the current framebuffer as the next frame.
+     *
+     * @return false if the frame was dropped because the recorder is behind (never when waiting for a free slot)
+     */
+    public boolean capture (Processor processor) {
+        if (closed) {
+            throw new IllegalStateException("Recorder is closed");
+        }
+        long frameNumber = nextFrameNumber++;
+        if (queue.offer(processor, frameNumber)) {
+            LockSupport.unpark(thread);
+            return true;
+        }
+        if (!waitWhenFull) {
+            droppedFrames++;
+            return false;
+        }
+
+        // the recorder thread keeps draining even after an encoder error, so a slot always frees up
+        waitingProducer = Thread.currentThread();
+        try {
+            while (!queue.offer(processor, frameNumber)) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        } finally {
+            waitingProducer = null;
+        }
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    private void drain () {
+        while (true) {
+            int slot = queue.peek();
+            if (slot < 0) {
+                if (closed && queue.isEmpty()) break;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            if (failure == null) {
+                try {
+                    accept(queue.frame(slot), queue.frameNumber(slot));
+                } catch (IOException e) {
+                    // keep draining so the producer never fills up, the error is reported on close
+                    failure = e;
+                }
+            }
+            queue.release();
+
+            Thread producer = waitingProducer;
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+        }
+    }
+
+    private void accept (byte[] frame, long frameNumber) throws IOException {
+        long hash = FrameHash.hash(frame);
+        if (hasPendingFrame && hash == pendingHash) {
+            duplicateFrames++;
+            return;
+        }
+
+        // the previous image is only written once we know how long it stayed on screen
+        flushPending(frameNumber);
+
+        System.arraycopy(frame, 0, pendingFrame, 0, pendingFrame.length);
+        pendingHash = hash;
+        pendingFrameNumber = frameNumber;
+        hasPendingFrame = true;
+    }
+
+    private void flushPending (long endFrameNumber) throws IOException {
+        if (!hasPendingFrame) return;
+        encoder.encode(pendingFrame, pendingFrameNumber, endFrameNumber - pendingFrameNumber);
+        encodedFrames++;
+        hasPendingFrame = false;
+    }
+
+    /*
+    Must be called from the emulation thread once it has stopped capturing. Waits for queued frames to be written.
+     */
+    @Override
+    public void close () throws IOException {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing capture", e);
+        }
+
+        try {
+            if (failure == null) {
+                flushPending(nextFrameNumber);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            encoder.close();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public long getCapturedFrames () {
+        return nextFrameNumber;
+    }
+
+    public long getDroppedFrames () {
+        return droppedFrames;
+    }
+
+    public long getEncodedFrames () {
+        return encodedFrames;
+    }
+
+    public long getDuplicateFrames () {
+        return duplicateFrames;
+    }
+}
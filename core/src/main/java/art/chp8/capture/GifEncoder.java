@@ -0,0 +1,112 @@
+package art.chp8.capture;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/*
+Writes an endlessly looping animated GIF. Repeated frames are not stored again, the previous frame's delay is extended instead.
+ */
+public class GifEncoder implements FrameEncoder {
+    private static final String METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+    private final ImageWriter writer;
+    private final ImageOutputStream output;
+    private final ImageWriteParam params;
+    private final FrameImages images;
+    private final int framesPerSecond;
+
+    // GIF delays are in hundredths of a second, so delays are derived from the running total to avoid drift
+    private long elapsedFrames;
+    private long elapsedCentiseconds;
+
+    public GifEncoder (File file, int scale, int framesPerSecond) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext()) {
+            throw new IOException("No GIF writer available");
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create capture directory: " + parent);
+        }
+
+        this.writer = writers.next();
+        this.output = ImageIO.createImageOutputStream(file);
+        if (output == null) {
+            throw new IOException("Could not open " + file);
+        }
+        this.params = writer.getDefaultWriteParam();
+        this.images = new FrameImages(scale);
+        this.framesPerSecond = framesPerSecond;
+
+        writer.setOutput(output);
+        writer.prepareWriteSequence(null);
+    }
+
+    @Override
+    public void encode (byte[] packedPixels, long firstFrame, long frameCount) throws IOException {
+        elapsedFrames += frameCount;
+        long centiseconds = Math.round(elapsedFrames * 100.0 / framesPerSecond);
+        // GIF delay is an unsigned 16 bit value, and most viewers treat 0 as "as fast as possible"
+        int delay = (int) Math.max(1, Math.min(0xFFFF, centiseconds - elapsedCentiseconds));
+        elapsedCentiseconds = centiseconds;
+
+        BufferedImage image = images.toImage(packedPixels);
+        writer.writeToSequence(new IIOImage(image, null, frameMetadata(image, delay, elapsedFrames == frameCount)), params);
+    }
+
+    private IIOMetadata frameMetadata (BufferedImage image, int delay, boolean firstImage) throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), params);
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(METADATA_FORMAT);
+
+        IIOMetadataNode graphicControl = child(root, "GraphicControlExtension");
+        graphicControl.setAttribute("disposalMethod", "none");
+        graphicControl.setAttribute("userInputFlag", "FALSE");
+        graphicControl.setAttribute("transparentColorFlag", "FALSE");
+        graphicControl.setAttribute("delayTime", Integer.toString(delay));
+        graphicControl.setAttribute("transparentColorIndex", "0");
+
+        if (firstImage) {
+            // NETSCAPE2.0 extension with a loop count of 0 - loop forever
+            IIOMetadataNode applicationExtension = new IIOMetadataNode("ApplicationExtension");
+            applicationExtension.setAttribute("applicationID", "NETSCAPE");
+            applicationExtension.setAttribute("authenticationCode", "2.0");
+            applicationExtension.setUserObject(new byte[]{0x1, 0x0, 0x0});
+            child(root, "ApplicationExtensions").appendChild(applicationExtension);
+        }
+
+        metadata.setFromTree(METADATA_FORMAT, root);
+        return metadata;
+    }
+
+    private static IIOMetadataNode child (IIOMetadataNode root, String name) {
+        for (int i = 0; i < root.getLength(); i++) {
+            if (root.item(i).getNodeName().equalsIgnoreCase(name)) {
+                return (IIOMetadataNode) root.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        root.appendChild(node);
+        return node;
+    }
+
+    @Override
+    public void close () throws IOException {
+        try {
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+            output.close();
+        }
+    }
+}
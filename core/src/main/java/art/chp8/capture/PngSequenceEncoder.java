@@ -0,0 +1,34 @@
+package art.chp8.capture;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+
+/*
+Writes every distinct frame as frame_<number>.png, where number is the frame in which it first appeared.
+Gaps in the numbering are frames that repeated the previous image.
+ */
+public class PngSequenceEncoder implements FrameEncoder {
+    private final File directory;
+    private final FrameImages images;
+
+    public PngSequenceEncoder (File directory, int scale) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create capture directory: " + directory);
+        }
+        this.directory = directory;
+        this.images = new FrameImages(scale);
+    }
+
+    @Override
+    public void encode (byte[] packedPixels, long firstFrame, long frameCount) throws IOException {
+        File file = new File(directory, String.format("frame_%06d.png", firstFrame));
+        if (!ImageIO.write(images.toImage(packedPixels), "png", file)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    @Override
+    public void close () {
+    }
+}
@@ -2,7 +2,6 @@ package art.chp8.instructions;
 
 import art.chp8.Keypad;
 import art.chp8.Processor;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.IntMap;
 
 import java.util.Arrays;
@@ -12,17 +11,17 @@ public enum Instruction {
     00EX - System
     */
     SYS(0x0000, (processor, opcode) -> {
-        int n = Decoder.n(opcode);
+        int nnn = Decoder.nnn(opcode);
 
-        switch (n) {
-            case 0x0: // 00E0 - CLS. Clear the display.
+        switch (nnn) {
+            case 0x0E0: // 00E0 - CLS. Clear the display.
                 boolean[][] pixels = processor.getPixels();
 
                 for (boolean[] row : pixels) {
                     Arrays.fill(row, false);
                 }
                 break;
-            case 0xE: // 00EE - RET. Return from a subroutine.
+            case 0x0EE: // 00EE - RET. Return from a subroutine.
                 int pop = processor.popStack();
                 processor.setProgramCounter(pop);
                 break;
@@ -69,8 +68,8 @@ public enum Instruction {
     SNE_VALUE(0x4000, (processor, opcode) -> {
         byte[] vRegisters = processor.getVRegisters();
 
-        byte currentRegisterValue = (byte) (vRegisters[Decoder.Vx(opcode)] & 0xFF);
-        if (currentRegisterValue != Decoder.kk(opcode)) {
+        int vxValue = vRegisters[Decoder.Vx(opcode)] & 0xFF; // Unsigned value
+        if (vxValue != Decoder.kk(opcode)) {
             processor.skipNextInstruction();
         }
     }),
@@ -80,6 +79,9 @@ public enum Instruction {
     Skip next instruction if Vx = Vy.
     */
     SE(0x5000, (processor, opcode) -> {
+        if (Decoder.n(opcode) != 0) {
+            throw new UnsupportedOperationException("Operation not found: " + Integer.toHexString(opcode));
+        }
         byte[] vRegisters = processor.getVRegisters();
 
         byte vx = (byte) (vRegisters[Decoder.Vx(opcode)] & 0xFF);
@@ -134,33 +136,42 @@ public enum Instruction {
                 // 8xy3 - Set Vx = Vx XOR Vy.
                 vRegisters[Vx] = (byte) (vRegisters[Vx] ^ vRegisters[Vy]);
                 break;
-            case 0x4:
+            // For the arithmetic cases VF is written last, so the flag wins when Vx is VF itself.
+            case 0x4: {
                 // 8xy4 - Set Vx = Vx + Vy, set VF = carry.
-                int additionResult = (vRegisters[Vx] & 0xFF) + (vRegisters[Vy] & 0xFF);
-                vRegisters[0xF] = (byte) (additionResult > 255 ? 1 : 0);
-                vRegisters[Vx] = (byte) (additionResult & 0xFF);
+                int result = (vRegisters[Vx] & 0xFF) + (vRegisters[Vy] & 0xFF);
+                vRegisters[Vx] = (byte) (result & 0xFF);
+                vRegisters[0xF] = (byte) (result > 255 ? 1 : 0);
                 break;
-            case 0x5:
+            }
+            case 0x5: {
                 // 8xy5 - Set Vx = Vx - Vy, set VF = NOT borrow.
-                vRegisters[0xF] = (byte) ((vRegisters[Vx] & 0xFF) > (vRegisters[Vy] & 0xFF) ? 1 : 0);
-                vRegisters[Vx] = (byte) ((vRegisters[Vx] & 0xFF) - (vRegisters[Vy] & 0xFF));
+                int result = (vRegisters[Vx] & 0xFF) - (vRegisters[Vy] & 0xFF);
+                vRegisters[Vx] = (byte) result;
+                vRegisters[0xF] = (byte) (result >= 0 ? 1 : 0);
                 break;
-            case 0x6:
+            }
+            case 0x6: {
                 // 8xy6 - Set Vx = Vx SHR 1.
-                vRegisters[0xF] = (byte) (vRegisters[Vx] & 0x01);
+                int shiftedOut = vRegisters[Vx] & 0x01;
                 vRegisters[Vx] = (byte) ((vRegisters[Vx] & 0xFF) >>> 1);
+                vRegisters[0xF] = (byte) shiftedOut;
                 break;
-            case 0x7:
+            }
+            case 0x7: {
                 // 8xy7 - Set Vx = Vy - Vx, set VF = NOT borrow.
                 int result = (vRegisters[Vy] & 0xFF) - (vRegisters[Vx] & 0xFF);
-                vRegisters[0xF] = (byte) (result > 0 ? 1 : 0);
                 vRegisters[Vx] = (byte) result;
+                vRegisters[0xF] = (byte) (result >= 0 ? 1 : 0);
                 break;
-            case 0xE:
+            }
+            case 0xE: {
                 // 8xyE - Set Vx = Vx SHL 1.
-                vRegisters[0xF] = (byte) ((vRegisters[Vx] & 0xFF) >> 7);
+                int shiftedOut = (vRegisters[Vx] & 0xFF) >> 7;
                 vRegisters[Vx] = (byte) ((vRegisters[Vx] & 0xFF) << 1);
+                vRegisters[0xF] = (byte) shiftedOut;
                 break;
+            }
             default:
                 throw new UnsupportedOperationException("Operation not found: " + Integer.toHexString(opcode));
         }
@@ -171,11 +182,14 @@ public enum Instruction {
     Skip next instruction if Vx != Vy.
      */
     SNE_VX_VY(0x9000, (processor, opcode) -> {
+        if (Decoder.n(opcode) != 0) {
+            throw new UnsupportedOperationException("Operation not found: " + Integer.toHexString(opcode));
+        }
         byte[] vRegisters = processor.getVRegisters();
         int Vx = Decoder.Vx(opcode) & 0xFF;
         int Vy = Decoder.Vy(opcode) & 0xFF;
 
-        if (vRegisters[Vx] == vRegisters[Vy]) processor.skipNextInstruction();
+        if (vRegisters[Vx] != vRegisters[Vy]) processor.skipNextInstruction();
     }),
 
     /*
@@ -198,7 +212,7 @@ public enum Instruction {
     Set Vx = random byte AND kk.
      */
     CXKK(0xC000, (processor, opcode) -> {
-        int random = MathUtils.random(0, 255);
+        int random = processor.getRandom().nextInt(256);
         int kk = Decoder.kk(opcode) & 0xFF;
 
         int Vx = Decoder.Vx(opcode);
@@ -223,11 +237,8 @@ public enum Instruction {
 
         vRegisters[0xF] = 0; // Reset collision register
 
-        // Ensure sprite height (N) is valid
+        // Sprite height, Decoder.n is always 0-15
         int n = Decoder.n(opcode);
-        if (n < 0 || n > 15) {
-            throw new IllegalArgumentException("Invalid sprite height: " + n);
-        }
 
         for (int rowIndex = 0; rowIndex < n; rowIndex++) {
             int memoryAddress = indexRegister + rowIndex;
@@ -309,7 +320,7 @@ public enum Instruction {
                 processor.setIndexRegister(indexRegister + (vRegisters[Vx] & 0xFF));
                 break;
             case 0x29: // Fx29 - LD F, Vx․ Set I = location of sprite for digit Vx.
-                byte digit = vRegisters[Vx];
+                int digit = vRegisters[Vx] & 0x0F;
                 processor.setIndexRegister(Processor.FONT_LOAD_START_ADDRESS + (digit * Processor.FONT_SIZE_BYTES));
                 break;
             case 0x33: // Fx33 - LD B, Vx. Store BCD representation of Vx in memory locations I, I+1, and I+2.
@@ -0,0 +1,332 @@
+package art.chp8.headless;
+
+import art.chp8.Processor;
+import art.chp8.capture.CaptureFormat;
+import art.chp8.capture.FrameHash;
+import art.chp8.capture.FrameRecorder;
+import art.chp8.headless.difftest.DifferentialHarness;
+import art.chp8.headless.difftest.InterpreterEngine;
+import art.chp8.headless.difftest.ReferenceInterpreter;
+import art.chp8.headless.explore.Crash;
+import art.chp8.headless.explore.StateExplorer;
+import art.chp8.headless.remote.StreamServer;
+import art.chp8.headless.sessions.SessionControlServer;
+import art.chp8.headless.sessions.SessionScheduler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/*
+Command-line entry point that runs ROMs without a window or any libGDX backend.
+Meant for short-lived processes (one per test case), so it does as little as possible before the first instruction.
+ */
+public class HeadlessLauncher {
+    private static final int CAPTURE_FRAMES_PER_SECOND = 60;
+    private static final int STREAM_FRAMES_PER_SECOND = 60;
+    // headless runs are not paced and capture waits when this fills up, so allow a large backlog before it does
+    private static final int CAPTURE_QUEUE_CAPACITY = 4096;
+
+    private final HeadlessOptions options;
+    private final PrintStream out;
+
+    private long mainEnteredNanos;
+    private long firstInstructionNanos = -1;
+
+    HeadlessLauncher (HeadlessOptions options, PrintStream out) {
+        this.options = options;
+        this.out = out;
+    }
+
+    public static void main (String[] args) {
+        long mainEnteredNanos = System.nanoTime();
+
+        HeadlessOptions options;
+        try {
+            options = HeadlessOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(HeadlessOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (options.sessionsPort >= 0) {
+            System.exit(hostSessions(options));
+            return;
+        }
+
+        if (options.diffTestCases >= 0 || options.diffTestCase >= 0) {
+            System.exit(diffTest(options));
+            return;
+        }
+
+        if (options.explore) {
+            System.exit(explore(options));
+            return;
+        }
+
+        if (options.servePort >= 0) {
+            System.exit(serve(options));
+            return;
+        }
+
+        HeadlessLauncher launcher = new HeadlessLauncher(options, System.out);
+        launcher.mainEnteredNanos = mainEnteredNanos;
+
+        int failures = launcher.runAll();
+        System.out.flush();
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static int serve (HeadlessOptions options) {
+        String rom = options.roms.get(0);
+        try {
+            byte[] romBytes = readRom(rom);
+            // every client gets its own emulator of this ROM, so find out now rather than on the first connection
+            new Processor().loadROM(romBytes);
+
+            StreamServer server = new StreamServer(
+                new InetSocketAddress(options.bindHost, options.servePort),
+                romBytes,
+                options.cyclesPerFrame,
+                STREAM_FRAMES_PER_SECOND
+            );
+            System.out.println("Serving " + rom + " on " + options.bindHost + ":" + server.getPort());
+            server.run();
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Server failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int hostSessions (HeadlessOptions options) {
+        SessionScheduler scheduler = new SessionScheduler(options.threads);
+        try (SessionControlServer control = new SessionControlServer(scheduler, options.sessionsPort)) {
+            scheduler.start();
+            System.out.println("Session control on 127.0.0.1:" + control.getPort() + ", " + options.threads + " worker threads");
+            control.run();
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Session server failed: " + e.getMessage());
+            return 1;
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private static int explore (HeadlessOptions options) {
+        String rom = options.roms.get(0);
+        StateExplorer explorer;
+        try {
+            explorer = new StateExplorer(readRom(rom), options.maxStates, options.maxDepth, options.segmentCycles, options.threads);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+
+        long started = System.nanoTime();
+        try {
+            explorer.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("explore %s threads=%d states=%d duplicates=%d reexpanded=%d truncated=%d halted=%d stalled=%d cycles=%d elapsed-s=%.2f states-per-minute=%.0f%s%n",
+            rom, options.threads, explorer.getExpandedStates(), explorer.getDuplicateStates(), explorer.getReexpandedStates(),
+            explorer.getTruncatedStates(),
+            explorer.getHaltedBranches(), explorer.getStalledBranches(), explorer.getExecutedCycles(), elapsedSeconds,
+            explorer.getExpandedStates() / elapsedSeconds * 60, explorer.reachedStateLimit() ? " (state limit reached)" : "");
+
+        List<Crash> crashes = explorer.getCrashes();
+        System.out.println("crashes=" + crashes.size());
+        for (Crash crash : crashes) {
+            System.out.println("  " + crash);
+        }
+        return crashes.isEmpty() ? 0 : 1;
+    }
+
+    private static int diffTest (HeadlessOptions options) {
+        DifferentialHarness harness = new DifferentialHarness(
+            options.seed, options.threads, InterpreterEngine::new, ReferenceInterpreter::new
+        );
+
+        if (options.diffTestCase >= 0) {
+            return harness.replay(options.diffTestCase, System.out) ? 0 : 1;
+        }
+        try {
+            return harness.run(options.diffTestCases, System.out) ? 0 : 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    int runAll () {
+        int failures = 0;
+
+        for (String rom : options.roms) {
+            if (!run(rom)) failures++;
+        }
+
+        if (options.batch) {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    if (!run(line)) failures++;
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to read ROM list: " + e.getMessage());
+                failures++;
+            }
+        }
+
+        if (options.timing) {
+            printTiming();
+        }
+        return failures;
+    }
+
+    private boolean run (String rom) {
+        Processor processor = new Processor();
+        FrameRecorder recorder = null;
+        int executed = 0;
+
+        try {
+            processor.loadROM(readRom(rom));
+            // Cxkk draws from this, so runs with the same --seed produce the same frames and recordings
+            processor.getRandom().setSeed(options.seed);
+            recorder = startRecording(rom);
+
+            for (; executed < options.cycles; executed++) {
+                processor.tick();
+                if (firstInstructionNanos < 0) {
+                    firstInstructionNanos = System.nanoTime();
+                }
+                if (recorder != null && (executed + 1) % options.cyclesPerFrame == 0) {
+                    recorder.capture(processor);
+                }
+            }
+        } catch (Exception e) {
+            out.println(rom + " cycles=" + executed + " error=" + e.getMessage());
+            closeQuietly(recorder);
+            return false;
+        }
+
+        StringBuilder line = new StringBuilder(rom).append(" cycles=").append(executed);
+        if (options.hash) {
+            byte[] packed = new byte[Processor.PACKED_PIXELS_BYTES];
+            processor.packPixels(packed);
+            line.append(" hash=").append(String.format("%016x", FrameHash.hash(packed)));
+        }
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                out.println(rom + " cycles=" + executed + " error=Failed to write frames: " + e.getMessage());
+                return false;
+            }
+            line.append(" frames=").append(recorder.getEncodedFrames())
+                .append(" duplicates=").append(recorder.getDuplicateFrames())
+                .append(" dropped=").append(recorder.getDroppedFrames());
+        }
+        out.println(line);
+
+        if (options.dump) {
+            dumpFramebuffer(processor.getPixels());
+        }
+        return true;
+    }
+
+    private FrameRecorder startRecording (String rom) throws IOException {
+        if (options.recordDirectory == null) return null;
+
+        String name = Paths.get(rom).getFileName().toString().replaceFirst("\\.ch8$", "");
+        File output = options.captureFormat == CaptureFormat.GIF
+            ? new File(options.recordDirectory, name + ".gif")
+            : new File(options.recordDirectory, name);
+
+        return new FrameRecorder(
+            options.captureFormat.open(output, options.captureScale, CAPTURE_FRAMES_PER_SECOND),
+            CAPTURE_QUEUE_CAPACITY,
+            // nothing paces a headless run, so wait for the encoder rather than drop frames and make runs differ
+            true
+        );
+    }
+
+    private static void closeQuietly (FrameRecorder recorder) {
+        if (recorder == null) return;
+        try {
+            recorder.close();
+        } catch (IOException ignored) {
+            // the run already failed, that error is the one reported
+        }
+    }
+
+    public static byte[] readRom (String rom) throws IOException {
+        Path path = Paths.get(rom);
+        if (Files.isRegularFile(path)) {
+            return Files.readAllBytes(path);
+        }
+
+        // fall back to the ROMs bundled from assets/roms (also embedded in the native image)
+        try (InputStream bundled = HeadlessLauncher.class.getResourceAsStream("/roms/" + rom + ".ch8")) {
+            if (bundled == null) {
+                throw new IOException("Could not find ROM file: " + rom);
+            }
+            return bundled.readAllBytes();
+        }
+    }
+
+    private void dumpFramebuffer (boolean[][] pixels) {
+        StringBuilder builder = new StringBuilder((Processor.SCREEN_WIDTH + 1) * Processor.SCREEN_HEIGHT);
+        for (int y = 0; y < Processor.SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < Processor.SCREEN_WIDTH; x++) {
+                builder.append(pixels[x][y] ? '#' : '.');
+            }
+            builder.append('\n');
+        }
+        out.print(builder);
+    }
+
+    private void printTiming () {
+        long nowNanos = System.nanoTime();
+
+        // Process start is only known to millisecond precision, so measure from it once and use nanoTime for the rest
+        Instant processStart = ProcessHandle.current().info().startInstant().orElse(null);
+        if (processStart == null) {
+            // no process start time on this platform, report relative to main() instead
+            System.err.printf(Locale.ROOT, "startup-ms=unknown first-instruction-ms=%.3f total-ms=%.3f%n",
+                millisSinceMain(firstInstructionNanos), millisSinceMain(nowNanos));
+            return;
+        }
+
+        long sinceStartMillis = System.currentTimeMillis() - processStart.toEpochMilli();
+        double startupMs = sinceStartMillis - millisSinceMain(nowNanos);
+
+        System.err.printf(Locale.ROOT, "startup-ms=%.3f first-instruction-ms=%.3f total-ms=%.3f%n",
+            startupMs, startupMs + millisSinceMain(firstInstructionNanos), startupMs + millisSinceMain(nowNanos));
+    }
+
+    private double millisSinceMain (long nanos) {
+        if (nanos < 0) return Double.NaN;
+        return (nanos - mainEnteredNanos) / 1e6;
+    }
+}
@@ -0,0 +1,173 @@
+package art.chp8.headless;
+
+import art.chp8.capture.CaptureFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HeadlessOptions {
+    public static final String USAGE =
+        "Usage: chip8-headless [options] <rom>...\n" +
+        "  <rom>             path to a .ch8 file, or the name of a bundled ROM in assets/roms\n" +
+        "  --cycles <n>      instructions to execute per ROM (default 1000)\n" +
+        "  --dump            print the framebuffer as text after the run\n" +
+        "  --hash            print a 64-bit hash of the framebuffer after the run\n" +
+        "  --batch           also read ROMs from standard input, one per line\n" +
+        "  --timing          print startup and first-instruction latency to stderr\n" +
+        "  --record <dir>    record frames into <dir>, as <rom>.gif or <rom>/frame_<n>.png (JVM only, not in the native image)\n" +
+        "  --format <fmt>    capture format, gif (default) or png\n" +
+        "  --scale <n>       size of one CHIP-8 pixel in captured images (default 4)\n" +
+        "  --cycles-per-frame <n>  instructions per frame, for capture and streaming (default 10)\n" +
+        "  --serve <port>    stream a fresh emulator of the (single) ROM to every client that connects\n" +
+        "  --bind <host>     address to serve on (default 127.0.0.1)\n" +
+        "  --difftest <n>    run n random cases on the interpreter and the reference engine, comparing every step\n" +
+        "  --difftest-case <i>  replay a single case of a --difftest run\n" +
+        "  --seed <n>        seed for generated cases and for Cxkk in ROM runs (default: random)\n" +
+        "  --threads <n>     worker threads (default: available processors)\n" +
+        "  --sessions <port> host emulator sessions, managed through a line-based control API on 127.0.0.1:<port>\n" +
+        "  --explore         explore the states the (single) ROM reaches under all keypad inputs and report crashes\n" +
+        "  --max-states <n>  distinct states to visit when exploring (default 1000000)\n" +
+        "  --max-depth <n>   input decisions along one path when exploring (default 256)\n" +
+        "  --segment-cycles <n>  instructions without input before a path is given up (default 100000)\n";
+
+    final List<String> roms = new ArrayList<>();
+    int cycles = 1000;
+    boolean dump;
+    boolean hash;
+    boolean batch;
+    boolean timing;
+    String recordDirectory;
+    CaptureFormat captureFormat = CaptureFormat.GIF;
+    int captureScale = 4;
+    int cyclesPerFrame = 10;
+    int servePort = -1;
+    String bindHost = "127.0.0.1";
+    long diffTestCases = -1;
+    long diffTestCase = -1;
+    long seed = System.nanoTime();
+    int threads = Runtime.getRuntime().availableProcessors();
+    int sessionsPort = -1;
+    boolean explore;
+    int maxStates = 1_000_000;
+    int maxDepth = 256;
+    int segmentCycles = 100_000;
+
+    static HeadlessOptions parse (String[] args) {
+        HeadlessOptions options = new HeadlessOptions();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--cycles":
+                    options.cycles = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--dump":
+                    options.dump = true;
+                    break;
+                case "--hash":
+                    options.hash = true;
+                    break;
+                case "--batch":
+                    options.batch = true;
+                    break;
+                case "--timing":
+                    options.timing = true;
+                    break;
+                case "--record":
+                    options.recordDirectory = value(args, ++i, arg);
+                    break;
+                case "--format":
+                    options.captureFormat = CaptureFormat.fromName(value(args, ++i, arg));
+                    break;
+                case "--scale":
+                    options.captureScale = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--cycles-per-frame":
+                    options.cyclesPerFrame = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--serve":
+                    options.servePort = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--bind":
+                    options.bindHost = value(args, ++i, arg);
+                    break;
+                case "--difftest":
+                    options.diffTestCases = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--difftest-case":
+                    options.diffTestCase = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--seed":
+                    options.seed = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--sessions":
+                    options.sessionsPort = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--explore":
+                    options.explore = true;
+                    break;
+                case "--max-states":
+                    options.maxStates = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--max-depth":
+                    options.maxDepth = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--segment-cycles":
+                    options.segmentCycles = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--threads":
+                    options.threads = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    options.roms.add(arg);
+            }
+        }
+
+        if (options.cycles < 0) {
+            throw new IllegalArgumentException("--cycles must not be negative");
+        }
+        if (options.captureScale < 1 || options.cyclesPerFrame < 1) {
+            throw new IllegalArgumentException("--scale and --cycles-per-frame must be positive");
+        }
+        if (options.threads < 1) {
+            throw new IllegalArgumentException("--threads must be positive");
+        }
+        if (options.roms.isEmpty() && !options.batch && !options.needsNoRom()) {
+            throw new IllegalArgumentException("No ROM given");
+        }
+        if (options.recordDirectory != null && inNativeImage()) {
+            // the encoders use ImageIO and AWT, which the native image is not configured for
+            throw new IllegalArgumentException("--record is only available on the JVM, not in the native image");
+        }
+        if (options.servePort >= 0 && options.roms.size() != 1) {
+            throw new IllegalArgumentException("--serve takes exactly one ROM");
+        }
+        if (options.explore && options.roms.size() != 1) {
+            throw new IllegalArgumentException("--explore takes exactly one ROM");
+        }
+        if (options.maxStates < 1 || options.maxDepth < 0 || options.segmentCycles < 1) {
+            throw new IllegalArgumentException("--max-states and --segment-cycles must be positive, --max-depth not negative");
+        }
+        return options;
+    }
+
+    // modes that do not run a ROM
+    boolean needsNoRom () {
+        return diffTestCases >= 0 || diffTestCase >= 0 || sessionsPort >= 0;
+    }
+
+    // GraalVM sets this property to "runtime" inside a native image
+    private static boolean inNativeImage () {
+        return "runtime".equals(System.getProperty("org.graalvm.nativeimage.imagecode"));
+    }
+
+    private static String value (String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+}
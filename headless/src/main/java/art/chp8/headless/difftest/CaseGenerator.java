@@ -0,0 +1,98 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.Processor;
+import art.chp8.ProcessorState;
+
+import java.util.SplittableRandom;
+
+/*
+Generates random but well-formed cases: every program instruction is a valid opcode, jumps and calls land on
+program instructions, and the rest of the machine state (registers, stack, timers, screen, data memory) is random.
+Execution can still leave the program through Bnnn, returns or skips; both engines then run whatever bytes they find.
+ */
+public class CaseGenerator {
+    private static final int MAX_PROGRAM_LENGTH = 24;
+
+    private static final int[] ARITHMETIC = {0x0, 0x1, 0x2, 0x3, 0x4, 0x5, 0x6, 0x7, 0xE};
+    private static final int[] MISC = {0x07, 0x0A, 0x15, 0x18, 0x1E, 0x29, 0x33, 0x55, 0x65};
+
+    // memory as a freshly constructed Processor has it (fonts loaded), copied into every case
+    private final ProcessorState template = new ProcessorState();
+
+    public CaseGenerator () {
+        new Processor().saveState(template);
+    }
+
+    /***
+     * Cases depend only on the seed and index, so any case can be regenerated from a report.
+     */
+    public DiffCase generate (long seed, long index) {
+        SplittableRandom random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+
+        int length = 1 + random.nextInt(MAX_PROGRAM_LENGTH);
+        int[] program = new int[length];
+        for (int i = 0; i < length; i++) {
+            program[i] = randomOpcode(random, length);
+        }
+
+        ProcessorState base = new ProcessorState();
+        base.copyFrom(template);
+
+        // random data after the program, for sprites, loads and stray jumps
+        for (int address = DiffCase.PROGRAM_START + length * 2; address < base.memory.length; address++) {
+            base.memory[address] = (byte) random.nextInt(256);
+        }
+        for (int r = 0; r < base.vRegisters.length; r++) {
+            base.vRegisters[r] = (byte) random.nextInt(256);
+        }
+
+        base.indexRegister = random.nextInt(base.memory.length);
+        base.stackPointer = random.nextInt(4) == 0 ? base.stack.length : random.nextInt(4);
+        for (int s = 0; s < base.stackPointer; s++) {
+            base.stack[s] = programAddress(random, length);
+        }
+        base.delayTimer = random.nextBoolean() ? 0 : random.nextInt(256);
+        base.soundTimer = random.nextBoolean() ? 0 : random.nextInt(256);
+        if (random.nextBoolean()) {
+            for (int p = 0; p < base.pixels.length; p++) {
+                base.pixels[p] = (byte) random.nextInt(256);
+            }
+        }
+        base.randomState0 = random.nextLong() | 1;
+        base.randomState1 = random.nextLong();
+
+        int keyMask = random.nextInt(3) == 0 ? 0 : random.nextInt(0x10000);
+        return new DiffCase(base, program, keyMask, length * 2 + 8);
+    }
+
+    private static int randomOpcode (SplittableRandom random, int length) {
+        int x = random.nextInt(16);
+        int y = random.nextInt(16);
+        int kk = random.nextInt(256);
+
+        switch (random.nextInt(20)) {
+            case 0: return random.nextBoolean() ? 0x00E0 : 0x00EE;
+            case 1: return 0x1000 | programAddress(random, length);
+            case 2: return 0x2000 | programAddress(random, length);
+            case 3: return 0x3000 | x << 8 | kk;
+            case 4: return 0x4000 | x << 8 | kk;
+            case 5: return 0x5000 | x << 8 | y << 4;
+            case 6: return 0x6000 | x << 8 | kk;
+            case 7: return 0x7000 | x << 8 | kk;
+            case 8:
+            case 9:
+            case 10: return 0x8000 | x << 8 | y << 4 | ARITHMETIC[random.nextInt(ARITHMETIC.length)];
+            case 11: return 0x9000 | x << 8 | y << 4;
+            case 12: return 0xA000 | random.nextInt(0x1000);
+            case 13: return 0xB000 | programAddress(random, length) - random.nextInt(4) * 2;
+            case 14: return 0xC000 | x << 8 | kk;
+            case 15: return 0xD000 | x << 8 | y << 4 | random.nextInt(16);
+            case 16: return 0xE000 | x << 8 | (random.nextBoolean() ? 0x9E : 0xA1);
+            default: return 0xF000 | x << 8 | MISC[random.nextInt(MISC.length)];
+        }
+    }
+
+    private static int programAddress (SplittableRandom random, int length) {
+        return DiffCase.PROGRAM_START + random.nextInt(length) * 2;
+    }
+}
@@ -0,0 +1,59 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.ProcessorState;
+
+/*
+Runs cases on a pair of engines, comparing the full machine state after every step.
+Not thread safe; every worker thread owns one runner.
+ */
+public class CaseRunner {
+    private final ExecutionEngine a;
+    private final ExecutionEngine b;
+
+    private final ProcessorState initial = new ProcessorState();
+    private final ProcessorState stateA = new ProcessorState();
+    private final ProcessorState stateB = new ProcessorState();
+
+    public CaseRunner (ExecutionEngine a, ExecutionEngine b) {
+        this.a = a;
+        this.b = b;
+    }
+
+    /***
+     *
+     * @return null if both engines agree on every step. Faulting on the same step counts as agreeing.
+     */
+    public Divergence run (DiffCase diffCase) {
+        diffCase.materialize(initial);
+        a.load(initial);
+        b.load(initial);
+
+        for (int step = 0; step < diffCase.steps; step++) {
+            Exception faultA = stepCatching(a, diffCase.keyMask);
+            Exception faultB = stepCatching(b, diffCase.keyMask);
+
+            if (faultA != null || faultB != null) {
+                if (faultA != null && faultB != null) return null;
+                return faultA != null
+                    ? Divergence.ofFault(step, a.name(), faultA, b.name())
+                    : Divergence.ofFault(step, b.name(), faultB, a.name());
+            }
+
+            a.save(stateA);
+            b.save(stateB);
+            if (!stateA.equals(stateB)) {
+                return Divergence.ofStates(step, a.name(), stateA, b.name(), stateB);
+            }
+        }
+        return null;
+    }
+
+    private static Exception stepCatching (ExecutionEngine engine, int keyMask) {
+        try {
+            engine.step(keyMask);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+}
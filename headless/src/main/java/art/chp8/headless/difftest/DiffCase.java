@@ -0,0 +1,48 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.ProcessorState;
+
+/*
+One generated test: a starting machine state, a program placed at 0x200, the keypad state and how many steps to run
+ */
+public class DiffCase {
+    static final int PROGRAM_START = 0x200;
+
+    final ProcessorState base;
+    final int[] program;
+    final int keyMask;
+    final int steps;
+
+    DiffCase (ProcessorState base, int[] program, int keyMask, int steps) {
+        this.base = base;
+        this.program = program;
+        this.keyMask = keyMask;
+        this.steps = steps;
+    }
+
+    // base state with the program written in and the program counter at its first instruction
+    void materialize (ProcessorState out) {
+        out.copyFrom(base);
+        for (int i = 0; i < program.length; i++) {
+            out.memory[PROGRAM_START + i * 2] = (byte) (program[i] >> 8);
+            out.memory[PROGRAM_START + i * 2 + 1] = (byte) program[i];
+        }
+        out.programCounter = PROGRAM_START;
+    }
+
+    DiffCase withProgram (int[] program) {
+        return new DiffCase(base, program, keyMask, steps);
+    }
+
+    DiffCase withKeyMask (int keyMask) {
+        return new DiffCase(base, program, keyMask, steps);
+    }
+
+    DiffCase withSteps (int steps) {
+        return new DiffCase(base, program, keyMask, steps);
+    }
+
+    DiffCase withBase (ProcessorState base) {
+        return new DiffCase(base, program, keyMask, steps);
+    }
+}
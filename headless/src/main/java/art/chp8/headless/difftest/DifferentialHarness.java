@@ -0,0 +1,126 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.ProcessorState;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/*
+Generates random cases and runs each on two engines in parallel, one CaseRunner per thread.
+Stops at the first divergence, shrinks it and prints a minimal reproduction.
+ */
+public class DifferentialHarness {
+    private static final int BATCH_SIZE = 1024;
+
+    private final long seed;
+    private final int threads;
+    private final Supplier<ExecutionEngine> engineA;
+    private final Supplier<ExecutionEngine> engineB;
+    private final CaseGenerator generator = new CaseGenerator();
+
+    public DifferentialHarness (long seed, int threads, Supplier<ExecutionEngine> engineA, Supplier<ExecutionEngine> engineB) {
+        this.seed = seed;
+        this.threads = threads;
+        this.engineA = engineA;
+        this.engineB = engineB;
+    }
+
+    /***
+     *
+     * @return true if no divergence was found in the given number of cases
+     */
+    public boolean run (long cases, PrintStream out) throws InterruptedException {
+        AtomicLong nextIndex = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        AtomicReference<Long> failingIndex = new AtomicReference<>();
+
+        long started = System.nanoTime();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                CaseRunner runner = new CaseRunner(engineA.get(), engineB.get());
+                while (failingIndex.get() == null) {
+                    long first = nextIndex.getAndAdd(BATCH_SIZE);
+                    if (first >= cases) break;
+
+                    long last = Math.min(first + BATCH_SIZE, cases);
+                    for (long index = first; index < last; index++) {
+                        if (runner.run(generator.generate(seed, index)) != null) {
+                            failingIndex.compareAndSet(null, index);
+                            break;
+                        }
+                    }
+                    completed.addAndGet(last - first);
+                }
+            }, "difftest-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        out.printf("difftest seed=%d threads=%d cases=%d elapsed-s=%.2f cases-per-minute=%.0f%n",
+            seed, threads, completed.get(), elapsedSeconds, completed.get() / elapsedSeconds * 60);
+
+        Long failing = failingIndex.get();
+        if (failing == null) {
+            out.println("result=ok");
+            return true;
+        }
+
+        CaseRunner runner = new CaseRunner(engineA.get(), engineB.get());
+        DiffCase original = generator.generate(seed, failing);
+        DiffCase minimal = new Shrinker(runner).shrink(original);
+        report(out, failing, original, minimal, runner.run(minimal));
+        return false;
+    }
+
+    private void report (PrintStream out, long index, DiffCase original, DiffCase minimal, Divergence divergence) {
+        out.printf("result=divergence case=%d (replay with --seed %d --difftest-case %d)%n", index, seed, index);
+        out.printf("shrunk from %d to %d instructions, %d steps%n", original.program.length, minimal.program.length, minimal.steps);
+
+        StringBuilder program = new StringBuilder("program:");
+        for (int i = 0; i < minimal.program.length; i++) {
+            program.append(String.format(" %03x:%04x", DiffCase.PROGRAM_START + i * 2, minimal.program[i]));
+        }
+        out.println(program);
+
+        ProcessorState base = minimal.base;
+        StringBuilder registers = new StringBuilder("initial:");
+        for (int r = 0; r < base.vRegisters.length; r++) {
+            if (base.vRegisters[r] != 0) {
+                registers.append(String.format(" V%X=%02x", r, base.vRegisters[r] & 0xFF));
+            }
+        }
+        registers.append(String.format(" I=%03x SP=%d DT=%d ST=%d keys=%04x",
+            base.indexRegister, base.stackPointer, base.delayTimer, base.soundTimer, minimal.keyMask));
+        out.println(registers);
+
+        out.println("diverged after step " + divergence.step + ":");
+        for (String difference : divergence.differences) {
+            out.println("  " + difference);
+        }
+    }
+
+    /***
+     * Re-runs a single case, e.g. one reported by an earlier run.
+     */
+    public boolean replay (long index, PrintStream out) {
+        CaseRunner runner = new CaseRunner(engineA.get(), engineB.get());
+        DiffCase diffCase = generator.generate(seed, index);
+        Divergence divergence = runner.run(diffCase);
+        if (divergence == null) {
+            out.println("result=ok case=" + index);
+            return true;
+        }
+        DiffCase minimal = new Shrinker(runner).shrink(diffCase);
+        report(out, index, diffCase, minimal, runner.run(minimal));
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.ProcessorState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Where and how two engines disagreed on a case
+ */
+public class Divergence {
+    private static final int MAX_LISTED_DIFFERENCES = 12;
+
+    final int step;
+    final List<String> differences;
+
+    private Divergence (int step, List<String> differences) {
+        this.step = step;
+        this.differences = differences;
+    }
+
+    static Divergence ofFault (int step, String engine, Exception fault, String otherEngine) {
+        List<String> differences = new ArrayList<>();
+        differences.add(engine + " faulted (" + fault + "), " + otherEngine + " did not");
+        return new Divergence(step, differences);
+    }
+
+    static Divergence ofStates (int step, String nameA, ProcessorState a, String nameB, ProcessorState b) {
+        List<String> differences = new ArrayList<>();
+        compare(differences, "PC", a.programCounter, b.programCounter);
+        compare(differences, "I", a.indexRegister, b.indexRegister);
+        compare(differences, "SP", a.stackPointer, b.stackPointer);
+        compare(differences, "DT", a.delayTimer, b.delayTimer);
+        compare(differences, "ST", a.soundTimer, b.soundTimer);
+        for (int r = 0; r < a.vRegisters.length; r++) {
+            compare(differences, "V" + Integer.toHexString(r).toUpperCase(), a.vRegisters[r] & 0xFF, b.vRegisters[r] & 0xFF);
+        }
+        for (int s = 0; s < a.stack.length; s++) {
+            compare(differences, "stack[" + s + "]", a.stack[s], b.stack[s]);
+        }
+        for (int p = 0; p < a.pixels.length; p++) {
+            compare(differences, "pixels[" + p + "]", a.pixels[p] & 0xFF, b.pixels[p] & 0xFF);
+        }
+        for (int m = 0; m < a.memory.length; m++) {
+            compare(differences, String.format("memory[0x%03x]", m), a.memory[m] & 0xFF, b.memory[m] & 0xFF);
+        }
+        if (a.randomState0 != b.randomState0 || a.randomState1 != b.randomState1) {
+            differences.add("random generator state");
+        }
+
+        List<String> labelled = new ArrayList<>();
+        for (String difference : differences.subList(0, Math.min(differences.size(), MAX_LISTED_DIFFERENCES))) {
+            labelled.add(difference.replace("{a}", nameA).replace("{b}", nameB));
+        }
+        if (differences.size() > MAX_LISTED_DIFFERENCES) {
+            labelled.add("... " + (differences.size() - MAX_LISTED_DIFFERENCES) + " more");
+        }
+        return new Divergence(step, labelled);
+    }
+
+    private static void compare (List<String> differences, String field, int a, int b) {
+        if (a != b) {
+            differences.add(String.format("%s: {a}=0x%x {b}=0x%x", field, a, b));
+        }
+    }
+}
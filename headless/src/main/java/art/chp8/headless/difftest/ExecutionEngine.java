@@ -0,0 +1,21 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.ProcessorState;
+
+/*
+Something that can execute CHIP-8 one instruction at a time from a given machine state.
+Engines throw any exception on a machine fault (stack overflow, unknown opcode, bad memory access).
+ */
+public interface ExecutionEngine {
+    String name ();
+
+    void load (ProcessorState initial);
+
+    /***
+     *
+     * @param keyMask Keypad state for this step, bit n set means key n is down
+     */
+    void step (int keyMask);
+
+    void save (ProcessorState out);
+}
@@ -0,0 +1,32 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.Processor;
+import art.chp8.ProcessorState;
+
+/*
+The production interpreter (Processor + Instruction)
+ */
+public class InterpreterEngine implements ExecutionEngine {
+    private final Processor processor = new Processor();
+
+    @Override
+    public String name () {
+        return "interpreter";
+    }
+
+    @Override
+    public void load (ProcessorState initial) {
+        processor.restoreState(initial);
+    }
+
+    @Override
+    public void step (int keyMask) {
+        processor.getKeypad().setPressedMask(keyMask);
+        processor.tick();
+    }
+
+    @Override
+    public void save (ProcessorState out) {
+        processor.saveState(out);
+    }
+}
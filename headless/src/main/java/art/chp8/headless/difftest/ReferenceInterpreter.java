@@ -0,0 +1,238 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.Processor;
+import art.chp8.ProcessorState;
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.util.Arrays;
+
+/*
+Independent, deliberately plain implementation of the instruction set, written straight from the spec and working
+directly on a ProcessorState. It shares no code with Instruction so the two can check each other.
+
+Quirk choices match the production interpreter: 8xy6/8xyE shift Vx, Fx55/Fx65 leave I unchanged, sprites wrap
+around the screen edges, addresses wrap around the end of memory, and both timers count down once per instruction.
+ */
+public class ReferenceInterpreter implements ExecutionEngine {
+    private static final int ROW_BYTES = Processor.SCREEN_WIDTH / 8;
+
+    private final ProcessorState state = new ProcessorState();
+    private final RandomXS128 random = new RandomXS128();
+
+    @Override
+    public String name () {
+        return "reference";
+    }
+
+    @Override
+    public void load (ProcessorState initial) {
+        state.copyFrom(initial);
+        random.setState(initial.randomState0, initial.randomState1);
+    }
+
+    @Override
+    public void save (ProcessorState out) {
+        state.randomState0 = random.getState(0);
+        state.randomState1 = random.getState(1);
+        out.copyFrom(state);
+    }
+
+    @Override
+    public void step (int keyMask) {
+        int pc = state.programCounter;
+        int opcode = (read(pc) << 8) | read(pc + 1);
+        state.programCounter = pc + 2;
+
+        execute(opcode, keyMask);
+
+        if (state.delayTimer > 0) state.delayTimer--;
+        if (state.soundTimer > 0) state.soundTimer--;
+    }
+
+    private void execute (int opcode, int keyMask) {
+        byte[] v = state.vRegisters;
+        int x = (opcode >> 8) & 0xF;
+        int y = (opcode >> 4) & 0xF;
+        int n = opcode & 0xF;
+        int kk = opcode & 0xFF;
+        int nnn = opcode & 0xFFF;
+        int vx = v[x] & 0xFF;
+        int vy = v[y] & 0xFF;
+
+        switch (opcode >> 12) {
+            case 0x0:
+                if (opcode == 0x00E0) {
+                    Arrays.fill(state.pixels, (byte) 0);
+                } else if (opcode == 0x00EE) {
+                    if (state.stackPointer == 0) throw new IllegalStateException("Stack underflow");
+                    state.programCounter = state.stack[--state.stackPointer];
+                } else {
+                    throw unknown(opcode);
+                }
+                break;
+            case 0x1:
+                state.programCounter = nnn;
+                break;
+            case 0x2:
+                if (state.stackPointer == state.stack.length) throw new IllegalStateException("Stack overflow");
+                state.stack[state.stackPointer++] = state.programCounter;
+                state.programCounter = nnn;
+                break;
+            case 0x3:
+                if (vx == kk) skip();
+                break;
+            case 0x4:
+                if (vx != kk) skip();
+                break;
+            case 0x5:
+                if (n != 0) throw unknown(opcode);
+                if (vx == vy) skip();
+                break;
+            case 0x6:
+                v[x] = (byte) kk;
+                break;
+            case 0x7:
+                v[x] = (byte) (vx + kk);
+                break;
+            case 0x8:
+                executeArithmetic(opcode, x, n, vx, vy);
+                break;
+            case 0x9:
+                if (n != 0) throw unknown(opcode);
+                if (vx != vy) skip();
+                break;
+            case 0xA:
+                state.indexRegister = nnn;
+                break;
+            case 0xB:
+                state.programCounter = (v[0] & 0xFF) + nnn;
+                break;
+            case 0xC:
+                v[x] = (byte) (random.nextInt(256) & kk);
+                break;
+            case 0xD:
+                draw(vx, vy, n);
+                break;
+            case 0xE: {
+                boolean pressed = vx < 16 && (keyMask & (1 << vx)) != 0;
+                if (kk == 0x9E) {
+                    if (pressed) skip();
+                } else if (kk == 0xA1) {
+                    if (!pressed) skip();
+                } else {
+                    throw unknown(opcode);
+                }
+                break;
+            }
+            case 0xF:
+                executeMisc(opcode, x, kk, vx, keyMask);
+                break;
+            default:
+                throw unknown(opcode);
+        }
+    }
+
+    private void executeArithmetic (int opcode, int x, int n, int vx, int vy) {
+        byte[] v = state.vRegisters;
+        int result;
+        int flag;
+
+        switch (n) {
+            case 0x0: v[x] = (byte) vy; return;
+            case 0x1: v[x] = (byte) (vx | vy); return;
+            case 0x2: v[x] = (byte) (vx & vy); return;
+            case 0x3: v[x] = (byte) (vx ^ vy); return;
+            case 0x4: result = vx + vy; flag = result > 0xFF ? 1 : 0; break;
+            case 0x5: result = vx - vy; flag = vx >= vy ? 1 : 0; break;
+            case 0x6: result = vx >> 1; flag = vx & 1; break;
+            case 0x7: result = vy - vx; flag = vy >= vx ? 1 : 0; break;
+            case 0xE: result = vx << 1; flag = vx >> 7; break;
+            default: throw unknown(opcode);
+        }
+
+        // flag last, so it survives x == F
+        v[x] = (byte) result;
+        v[0xF] = (byte) flag;
+    }
+
+    private void executeMisc (int opcode, int x, int kk, int vx, int keyMask) {
+        byte[] v = state.vRegisters;
+        int i = state.indexRegister;
+
+        switch (kk) {
+            case 0x07:
+                v[x] = (byte) state.delayTimer;
+                break;
+            case 0x0A:
+                if (keyMask == 0) {
+                    state.programCounter -= 2;
+                } else {
+                    v[x] = (byte) Integer.numberOfTrailingZeros(keyMask);
+                }
+                break;
+            case 0x15:
+                state.delayTimer = vx;
+                break;
+            case 0x18:
+                state.soundTimer = vx;
+                break;
+            case 0x1E:
+                state.indexRegister = i + vx;
+                break;
+            case 0x29:
+                state.indexRegister = Processor.FONT_LOAD_START_ADDRESS + (vx & 0xF) * Processor.FONT_SIZE_BYTES;
+                break;
+            case 0x33:
+                write(i, vx / 100);
+                write(i + 1, (vx / 10) % 10);
+                write(i + 2, vx % 10);
+                break;
+            case 0x55:
+                for (int r = 0; r <= x; r++) write(i + r, v[r]);
+                break;
+            case 0x65:
+                for (int r = 0; r <= x; r++) v[r] = (byte) read(i + r);
+                break;
+            default:
+                throw unknown(opcode);
+        }
+    }
+
+    private void draw (int vx, int vy, int height) {
+        int startX = vx % Processor.SCREEN_WIDTH;
+        int startY = vy % Processor.SCREEN_HEIGHT;
+        int collision = 0;
+
+        for (int row = 0; row < height; row++) {
+            int sprite = read(state.indexRegister + row);
+            int py = (startY + row) % Processor.SCREEN_HEIGHT;
+
+            for (int col = 0; col < 8; col++) {
+                if ((sprite & (0x80 >> col)) == 0) continue;
+
+                int px = (startX + col) % Processor.SCREEN_WIDTH;
+                int index = py * ROW_BYTES + px / 8;
+                int mask = 0x80 >> (px % 8);
+                if ((state.pixels[index] & mask) != 0) collision = 1;
+                state.pixels[index] ^= (byte) mask;
+            }
+        }
+        state.vRegisters[0xF] = (byte) collision;
+    }
+
+    private void skip () {
+        state.programCounter += 2;
+    }
+
+    private int read (int address) {
+        return state.memory[address % state.memory.length] & 0xFF;
+    }
+
+    private void write (int address, int value) {
+        state.memory[address % state.memory.length] = (byte) value;
+    }
+
+    private static UnsupportedOperationException unknown (int opcode) {
+        return new UnsupportedOperationException("Unknown opcode " + Integer.toHexString(opcode));
+    }
+}
@@ -0,0 +1,121 @@
+package art.chp8.headless.difftest;
+
+import art.chp8.Processor;
+import art.chp8.ProcessorState;
+
+import java.util.Arrays;
+
+/*
+Greedily reduces a failing case while it keeps failing: cuts the step count to the divergence, drops program
+instructions (large chunks first), then resets pieces of the starting state to zero.
+ */
+public class Shrinker {
+    private static final int MEMORY_CHUNK = 256;
+
+    private final CaseRunner runner;
+
+    public Shrinker (CaseRunner runner) {
+        this.runner = runner;
+    }
+
+    public DiffCase shrink (DiffCase failing) {
+        DiffCase current = failing;
+        Divergence divergence = runner.run(current);
+        if (divergence == null) {
+            throw new IllegalArgumentException("Case does not fail");
+        }
+        current = current.withSteps(divergence.step + 1);
+
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+
+            DiffCase shorter = shrinkProgram(current);
+            if (shorter != current) {
+                current = shorter;
+                progress = true;
+            }
+
+            DiffCase simpler = simplifyState(current);
+            if (simpler != current) {
+                current = simpler;
+                progress = true;
+            }
+
+            Divergence latest = runner.run(current);
+            if (latest.step + 1 < current.steps) {
+                current = current.withSteps(latest.step + 1);
+                progress = true;
+            }
+        }
+        return current;
+    }
+
+    private DiffCase shrinkProgram (DiffCase current) {
+        for (int chunk = current.program.length / 2; chunk >= 1; chunk /= 2) {
+            int start = 0;
+            while (start < current.program.length && current.program.length > 1) {
+                int end = Math.min(start + chunk, current.program.length);
+                if (end - start == current.program.length) break;
+
+                int[] candidate = new int[current.program.length - (end - start)];
+                System.arraycopy(current.program, 0, candidate, 0, start);
+                System.arraycopy(current.program, end, candidate, start, current.program.length - end);
+
+                DiffCase smaller = current.withProgram(candidate);
+                if (fails(smaller)) {
+                    current = smaller;
+                } else {
+                    start += chunk;
+                }
+            }
+        }
+        return current;
+    }
+
+    private DiffCase simplifyState (DiffCase current) {
+        if (current.keyMask != 0 && fails(current.withKeyMask(0))) {
+            current = current.withKeyMask(0);
+        }
+
+        for (int r = 0; r < 16; r++) {
+            final int register = r;
+            current = tryState(current, state -> state.vRegisters[register] = 0);
+        }
+        current = tryState(current, state -> state.indexRegister = 0);
+        current = tryState(current, state -> state.delayTimer = 0);
+        current = tryState(current, state -> state.soundTimer = 0);
+        current = tryState(current, state -> {
+            state.stackPointer = 0;
+            Arrays.fill(state.stack, 0);
+        });
+        current = tryState(current, state -> Arrays.fill(state.pixels, (byte) 0));
+
+        int programEnd = DiffCase.PROGRAM_START + current.program.length * 2;
+        for (int from = programEnd; from < Processor.MEMORY_SIZE; from += MEMORY_CHUNK) {
+            final int start = from;
+            current = tryState(current, state -> Arrays.fill(state.memory, start, Math.min(start + MEMORY_CHUNK, Processor.MEMORY_SIZE), (byte) 0));
+        }
+        return current;
+    }
+
+    private interface StateEdit {
+        void apply (ProcessorState state);
+    }
+
+    private DiffCase tryState (DiffCase current, StateEdit edit) {
+        ProcessorState edited = new ProcessorState();
+        edited.copyFrom(current.base);
+        edit.apply(edited);
+        if (edited.equals(current.base)) {
+            return current;
+        }
+
+        DiffCase candidate = current.withBase(edited);
+        return fails(candidate) ? candidate : current;
+    }
+
+    private boolean fails (DiffCase candidate) {
+        return runner.run(candidate) != null;
+    }
+}
@@ -0,0 +1,27 @@
+package art.chp8.headless.explore;
+
+/*
+A way the program can fail, with the first input path found that reaches it
+ */
+public class Crash {
+    public enum Kind { STACK_OVERFLOW, STACK_UNDERFLOW, UNKNOWN_OPCODE, MEMORY_OUT_OF_BOUNDS }
+
+    final Kind kind;
+    final int programCounter;
+    final int opcode;
+    final String message;
+    final InputPath path;
+
+    Crash (Kind kind, int programCounter, int opcode, String message, InputPath path) {
+        this.kind = kind;
+        this.programCounter = programCounter;
+        this.opcode = opcode;
+        this.message = message;
+        this.path = path;
+    }
+
+    @Override
+    public String toString () {
+        return String.format("%s at %03x (opcode %04x): %s%n    inputs: %s", kind, programCounter, opcode, message, path);
+    }
+}
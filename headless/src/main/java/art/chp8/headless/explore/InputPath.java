@@ -0,0 +1,44 @@
+package art.chp8.headless.explore;
+
+/*
+The keypad choices that lead to a state, stored as a linked list back to the start so forks share their prefix
+ */
+public class InputPath {
+    // no key held at this decision point
+    public static final int NO_KEY = -1;
+
+    static final InputPath START = new InputPath(null, NO_KEY);
+
+    private final InputPath parent;
+    private final int key;
+    private final int depth;
+
+    private InputPath (InputPath parent, int key) {
+        this.parent = parent;
+        this.key = key;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+
+    InputPath then (int key) {
+        return new InputPath(this, key);
+    }
+
+    public int getDepth () {
+        return depth;
+    }
+
+    // e.g. "- 5 5 A" - the key held from each decision point on, '-' for none
+    @Override
+    public String toString () {
+        if (depth == 0) return "(start)";
+
+        char[] text = new char[depth * 2 - 1];
+        InputPath path = this;
+        for (int i = depth - 1; i >= 0; i--) {
+            text[i * 2] = path.key == NO_KEY ? '-' : Character.toUpperCase(Character.forDigit(path.key, 16));
+            if (i > 0) text[i * 2 - 1] = ' ';
+            path = path.parent;
+        }
+        return new String(text);
+    }
+}
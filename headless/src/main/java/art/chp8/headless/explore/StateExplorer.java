@@ -0,0 +1,297 @@
+package art.chp8.headless.explore;
+
+import art.chp8.Processor;
+import art.chp8.ProcessorState;
+import art.chp8.StackOverflowException;
+import art.chp8.StackUnderflowException;
+import art.chp8.instructions.Decoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+Explores which states a ROM can reach under any keypad input.
+
+The program runs until it is about to execute an input instruction (Ex9E, ExA1, Fx0A). That state is hashed; if it
+was seen before after as few or fewer decisions, the branch ends. Otherwise it forks 17 ways - no key held, or one of the 16 keys held until the next
+decision point. Forks are tasks on a work-stealing pool that each restore the parent's saved state into their
+worker's own Processor, so a fork costs one state copy.
+
+Crashes (stack overflow/underflow, unknown opcode, memory accesses that would run past the end of memory and wrap)
+are recorded once per kind and address, together with the shortest input path that leads there. The pool explores
+roughly depth-first, so a state is often first reached by a long path; when a shorter one turns up later, the state is
+explored again from there. The paths are therefore shortest unless --max-states or --max-depth cut the search short.
+ */
+public class StateExplorer {
+    private final byte[] rom;
+    private final int maxStates;
+    private final int maxDepth;
+    private final int segmentCycles;
+    private final ForkJoinPool pool;
+
+    private final VisitedStates visited;
+    private final Map<Long, Crash> crashes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    private final AtomicLong expandedStates = new AtomicLong();
+    private final AtomicLong duplicateStates = new AtomicLong();
+    private final AtomicLong reexpandedStates = new AtomicLong();
+    private final AtomicLong truncatedStates = new AtomicLong();
+    private final AtomicLong halted = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+    private final AtomicLong executedCycles = new AtomicLong();
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /***
+     *
+     * @param maxStates Distinct decision-point states to visit before stopping
+     * @param maxDepth Decision points along one path before it is cut off
+     * @param segmentCycles Instructions to run without reaching a decision point before the branch is given up as stalled
+     */
+    public StateExplorer (byte[] rom, int maxStates, int maxDepth, int segmentCycles, int threads) {
+        this.rom = rom;
+        this.maxStates = maxStates;
+        this.maxDepth = maxDepth;
+        this.segmentCycles = segmentCycles;
+        this.pool = new ForkJoinPool(threads);
+        this.visited = new VisitedStates(maxStates);
+    }
+
+    private static class Worker {
+        final Processor processor = new Processor();
+        final ProcessorState scratch = new ProcessorState();
+        long cycles;
+    }
+
+    private enum Outcome { DECISION, HALTED, STALLED, CRASHED }
+
+    /*
+    Blocks until the whole reachable tree (within the limits) has been explored
+     */
+    public void run () throws InterruptedException {
+        Processor processor = new Processor();
+        processor.loadROM(rom);
+        ProcessorState initial = new ProcessorState();
+        processor.saveState(initial);
+
+        // the calling thread only waits, so every fork happens on a pool worker and stays in this pool
+        pool.execute(new Branch(null, initial, InputPath.START, 0));
+        finished.await();
+        pool.shutdown();
+
+        RuntimeException error = failure.get();
+        if (error != null) {
+            throw new IllegalStateException("Exploration failed", error);
+        }
+    }
+
+    private class Branch extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private ProcessorState from;
+        private final InputPath path;
+        private final int keyMask;
+
+        Branch (Branch parent, ProcessorState from, InputPath path, int keyMask) {
+            super(parent);
+            this.from = from;
+            this.path = path;
+            this.keyMask = keyMask;
+        }
+
+        @Override
+        public void compute () {
+            try {
+                explore();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            // completes once every forked child has completed too
+            tryComplete();
+        }
+
+        private void explore () {
+            Worker worker = workers.get();
+            Processor processor = worker.processor;
+            processor.restoreState(from);
+            processor.getKeypad().setPressedMask(keyMask);
+            // finished with the parent's state, don't keep it alive while the subtree runs
+            from = null;
+
+            // a forked branch starts on the input instruction it was forked for, the root has not decided anything yet
+            Outcome outcome = runSegment(worker, path, getCompleter() != null);
+            executedCycles.addAndGet(worker.cycles);
+            worker.cycles = 0;
+
+            if (outcome == Outcome.HALTED) halted.incrementAndGet();
+            if (outcome == Outcome.STALLED) stalled.incrementAndGet();
+            if (outcome != Outcome.DECISION) return;
+
+            processor.saveState(worker.scratch);
+            switch (visited.visit(StateHash.hash(worker.scratch), path.getDepth())) {
+                case ADDED:
+                    expandedStates.incrementAndGet();
+                    break;
+                case SHORTER:
+                    // explored before from a longer path; again, so everything beyond it gets the shorter inputs
+                    reexpandedStates.incrementAndGet();
+                    break;
+                case PRESENT:
+                    duplicateStates.incrementAndGet();
+                    return;
+                case FULL:
+                    // may well be new, but there is no room left to remember it
+                    truncatedStates.incrementAndGet();
+                    return;
+            }
+            if (path.getDepth() >= maxDepth) return;
+
+            // the children only read this state, so all of them share one copy
+            ProcessorState decision = new ProcessorState();
+            decision.copyFrom(worker.scratch);
+
+            fork(new Branch(this, decision, path.then(InputPath.NO_KEY), 0));
+            for (int key = 0; key < 16; key++) {
+                fork(new Branch(this, decision, path.then(key), 1 << key));
+            }
+        }
+
+        private void fork (Branch child) {
+            addToPendingCount(1);
+            child.fork();
+        }
+
+        @Override
+        public void onCompletion (CountedCompleter<?> caller) {
+            if (getCompleter() == null) {
+                finished.countDown();
+            }
+        }
+    }
+
+    /*
+    Runs until the next input instruction. With startsAtDecision the first instruction is not treated as a decision
+    point, since the branch starts right at the decision it was forked for.
+     */
+    private Outcome runSegment (Worker worker, InputPath path, boolean startsAtDecision) {
+        Processor processor = worker.processor;
+        int memorySize = processor.getMemory().size();
+
+        for (int step = 0; step < segmentCycles; step++) {
+            int pc = processor.getProgramCounter();
+            if (pc < 0 || pc > memorySize - 2) {
+                return crash(Crash.Kind.MEMORY_OUT_OF_BOUNDS, pc, 0, "program counter outside memory", path);
+            }
+
+            int opcode = ((processor.readMemory(pc) & 0xFF) << 8) | (processor.readMemory(pc + 1) & 0xFF);
+            if ((step > 0 || !startsAtDecision) && isDecision(opcode)) {
+                return Outcome.DECISION;
+            }
+
+            int accessEnd = memoryAccessEnd(processor, opcode);
+            if (accessEnd > memorySize) {
+                return crash(Crash.Kind.MEMORY_OUT_OF_BOUNDS, pc, opcode,
+                    String.format("access up to %x past the end of memory", accessEnd - 1), path);
+            }
+
+            try {
+                processor.tick();
+            } catch (StackOverflowException e) {
+                return crash(Crash.Kind.STACK_OVERFLOW, pc, opcode, e.getMessage(), path);
+            } catch (StackUnderflowException e) {
+                return crash(Crash.Kind.STACK_UNDERFLOW, pc, opcode, e.getMessage(), path);
+            } catch (UnsupportedOperationException e) {
+                return crash(Crash.Kind.UNKNOWN_OPCODE, pc, opcode, e.getMessage(), path);
+            }
+            worker.cycles++;
+
+            // 1nnn jumping to itself is how CHIP-8 programs stop
+            if (processor.getProgramCounter() == pc && Decoder.op(opcode) == 0x1000) {
+                return Outcome.HALTED;
+            }
+        }
+        return Outcome.STALLED;
+    }
+
+    private Outcome crash (Crash.Kind kind, int pc, int opcode, String message, InputPath path) {
+        // keep the shortest known input path to each crash
+        crashes.merge((long) kind.ordinal() << 32 | pc, new Crash(kind, pc, opcode, message, path),
+            (known, found) -> found.path.getDepth() < known.path.getDepth() ? found : known);
+        return Outcome.CRASHED;
+    }
+
+    private static boolean isDecision (int opcode) {
+        int op = Decoder.op(opcode);
+        int kk = Decoder.kk(opcode);
+        return (op == 0xE000 && (kk == 0x9E || kk == 0xA1)) || (op == 0xF000 && kk == 0x0A);
+    }
+
+    // One past the highest address the instruction touches through I, or 0 if it does not use I
+    private static int memoryAccessEnd (Processor processor, int opcode) {
+        int i = processor.getIndexRegister();
+        switch (Decoder.op(opcode)) {
+            case 0xD000:
+                return Decoder.n(opcode) == 0 ? 0 : i + Decoder.n(opcode);
+            case 0xF000:
+                switch (Decoder.kk(opcode)) {
+                    case 0x33: return i + 3;
+                    case 0x55:
+                    case 0x65: return i + Decoder.Vx(opcode) + 1;
+                    default: return 0;
+                }
+            default:
+                return 0;
+        }
+    }
+
+    public List<Crash> getCrashes () {
+        return new ArrayList<>(crashes.values());
+    }
+
+    public long getExpandedStates () {
+        return expandedStates.get();
+    }
+
+    public long getDuplicateStates () {
+        return duplicateStates.get();
+    }
+
+    /*
+    Decision points explored again because a shorter input path reached them
+     */
+    public long getReexpandedStates () {
+        return reexpandedStates.get();
+    }
+
+    /*
+    New decision points dropped because the visited set was full
+     */
+    public long getTruncatedStates () {
+        return truncatedStates.get();
+    }
+
+    public long getHaltedBranches () {
+        return halted.get();
+    }
+
+    public long getStalledBranches () {
+        return stalled.get();
+    }
+
+    public long getExecutedCycles () {
+        return executedCycles.get();
+    }
+
+    public boolean reachedStateLimit () {
+        return visited.isFull() || truncatedStates.get() > 0;
+    }
+}
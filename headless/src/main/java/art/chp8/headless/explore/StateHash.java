@@ -0,0 +1,53 @@
+package art.chp8.headless.explore;
+
+import art.chp8.ProcessorState;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/*
+64-bit hash of memory, registers, stack, timers and framebuffer, eight bytes at a time.
+The random generator state is left out, so states that only differ in future Cxkk results count as the same.
+ */
+public class StateHash {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long K1 = 0x9E3779B97F4A7C15L;
+    private static final long K2 = 0xC2B2AE3D27D4EB4FL;
+
+    public static long hash (ProcessorState state) {
+        long hash = K2;
+        hash = mixBytes(hash, state.memory);
+        hash = mixBytes(hash, state.vRegisters);
+        hash = mixBytes(hash, state.pixels);
+        for (int i = 0; i < state.stackPointer; i++) {
+            hash = mix(hash, state.stack[i]);
+        }
+        hash = mix(hash, state.programCounter | (long) state.indexRegister << 32);
+        hash = mix(hash, state.stackPointer | (long) state.delayTimer << 16 | (long) state.soundTimer << 32);
+        return finish(hash);
+    }
+
+    // lengths are multiples of 8 for all ProcessorState arrays
+    private static long mixBytes (long hash, byte[] bytes) {
+        for (int offset = 0; offset < bytes.length; offset += 8) {
+            hash = mix(hash, (long) LONGS.get(bytes, offset));
+        }
+        return hash;
+    }
+
+    private static long mix (long hash, long value) {
+        return Long.rotateLeft(hash ^ (value * K1), 31) * K2;
+    }
+
+    // murmur3 finalizer
+    private static long finish (long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,92 @@
+package art.chp8.headless.explore;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Fixed-capacity, lock-free map from state hash to the smallest depth (number of input decisions) it was reached at:
+open addressing with linear probing over an AtomicLongArray of hashes and a parallel AtomicIntegerArray of depths.
+Hashes are only ever added, depths only ever lowered. 0 marks an empty hash slot, so a 0 hash is stored as a
+substitute constant; depths are stored plus one, so 0 also means "not written yet" there.
+ */
+public class VisitedStates {
+    private static final long EMPTY = 0L;
+    private static final long ZERO_SUBSTITUTE = 0x8000_0000_0000_0000L;
+
+    private final AtomicLongArray slots;
+    private final AtomicIntegerArray depths;
+    private final int mask;
+    private final int maxSize;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public enum VisitResult {
+        // first visit
+        ADDED,
+        // visited before, but this path is shorter
+        SHORTER,
+        // visited before by a path at least as short
+        PRESENT,
+        // not visited before, but there is no room left to remember it
+        FULL
+    }
+
+    /***
+     *
+     * @param maxSize Number of states the map must be able to hold; the table is sized to stay at most half full
+     */
+    public VisitedStates (int maxSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) << 1;
+        this.slots = new AtomicLongArray(capacity);
+        this.depths = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+        this.maxSize = maxSize;
+    }
+
+    /***
+     * Records that the state with this hash was reached after depth decisions.
+     * Threads racing past the size limit can overshoot it by a few states, which the half-empty table absorbs.
+     */
+    public VisitResult visit (long hash, int depth) {
+        long key = hash == EMPTY ? ZERO_SUBSTITUTE : hash;
+        // the values are already hashes, the high bits only need folding in
+        int index = (int) (key ^ (key >>> 32)) & mask;
+
+        while (true) {
+            long current = slots.get(index);
+            if (current == key) {
+                return lowerDepth(index, depth) ? VisitResult.SHORTER : VisitResult.PRESENT;
+            }
+
+            if (current == EMPTY) {
+                if (size.get() >= maxSize) return VisitResult.FULL;
+                if (slots.compareAndSet(index, EMPTY, key)) {
+                    size.incrementAndGet();
+                    // a shorter visit may already have come in between claiming the slot and here, both get expanded
+                    lowerDepth(index, depth);
+                    return VisitResult.ADDED;
+                }
+                // lost the slot to another thread, look at what it wrote
+                continue;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private boolean lowerDepth (int index, int depth) {
+        int stored = depth + 1;
+        while (true) {
+            int current = depths.get(index);
+            if (current != 0 && current <= stored) return false;
+            if (depths.compareAndSet(index, current, stored)) return true;
+        }
+    }
+
+    public int size () {
+        return size.get();
+    }
+
+    public boolean isFull () {
+        return size.get() >= maxSize;
+    }
+}
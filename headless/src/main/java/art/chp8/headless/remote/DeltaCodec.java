@@ -0,0 +1,132 @@
+package art.chp8.headless.remote;
+
+import art.chp8.Processor;
+
+import java.nio.ByteBuffer;
+
+/*
+Wire format of the display stream. All multi-byte values are big-endian.
+
+Server to client, one per frame in which something changed:
+    [MSG_FRAME:1][length:2][rowMask:4][row]*
+    rowMask bit r is set if framebuffer row r changed, one [row] entry follows per set bit, top row first.
+    [row] is the XOR of the new row against the previous one (8 bytes, packPixels layout), run-length encoded as
+    [runLength:1][value:1] pairs that add up to 8 bytes.
+    length counts the bytes after the length field.
+
+Client to server:
+    [MSG_KEYS:1][mask:2]    bit n set means keypad key n is down
+
+Both sides start from a blank framebuffer, so the first frame a client receives is effectively a full frame.
+ */
+public class DeltaCodec {
+    public static final byte MSG_FRAME = 1;
+    public static final byte MSG_KEYS = 2;
+
+    public static final int KEYS_MESSAGE_BYTES = 3;
+
+    static final int ROW_BYTES = Processor.SCREEN_WIDTH / 8;
+    private static final int HEADER_BYTES = 3;
+
+    // every row changed and no two neighbouring bytes of any row XOR to the same value
+    public static final int MAX_FRAME_MESSAGE_BYTES = HEADER_BYTES + 4 + Processor.SCREEN_HEIGHT * ROW_BYTES * 2;
+
+    /***
+     * Appends a frame message with the rows that differ between previous and current, then updates previous to current.
+     * Writes nothing if the frames are identical.
+     *
+     * @return Number of changed rows
+     */
+    public static int encode (byte[] previous, byte[] current, ByteBuffer out) {
+        int start = out.position();
+        out.put(MSG_FRAME);
+        out.putShort((short) 0);
+        int maskPosition = out.position();
+        out.putInt(0);
+
+        int rowMask = 0;
+        for (int row = 0; row < Processor.SCREEN_HEIGHT; row++) {
+            int base = row * ROW_BYTES;
+            if (rowEquals(previous, current, base)) continue;
+
+            rowMask |= 1 << row;
+
+            int i = 0;
+            while (i < ROW_BYTES) {
+                byte delta = (byte) (previous[base + i] ^ current[base + i]);
+                int run = 1;
+                while (i + run < ROW_BYTES && (byte) (previous[base + i + run] ^ current[base + i + run]) == delta) {
+                    run++;
+                }
+                out.put((byte) run);
+                out.put(delta);
+                i += run;
+            }
+
+            System.arraycopy(current, base, previous, base, ROW_BYTES);
+        }
+
+        if (rowMask == 0) {
+            out.position(start);
+            return 0;
+        }
+
+        out.putInt(maskPosition, rowMask);
+        out.putShort(start + 1, (short) (out.position() - maskPosition));
+        return Integer.bitCount(rowMask);
+    }
+
+    /***
+     * Applies one frame message to frame if a complete one is available.
+     *
+     * @return false (with the buffer untouched) if more bytes are needed
+     */
+    public static boolean decode (ByteBuffer in, byte[] frame) {
+        if (in.remaining() < HEADER_BYTES) return false;
+
+        int start = in.position();
+        int length = in.getShort(start + 1) & 0xFFFF;
+        if (in.remaining() < HEADER_BYTES + length) return false;
+
+        byte type = in.get(start);
+        if (type != MSG_FRAME) {
+            throw new IllegalStateException("Unexpected message type: " + type);
+        }
+
+        in.position(start + HEADER_BYTES);
+        int rowMask = in.getInt();
+        for (int row = 0; row < Processor.SCREEN_HEIGHT; row++) {
+            if ((rowMask & (1 << row)) == 0) continue;
+
+            int base = row * ROW_BYTES;
+            int i = 0;
+            while (i < ROW_BYTES) {
+                int run = in.get();
+                byte delta = in.get();
+                if (run < 1 || i + run > ROW_BYTES) {
+                    throw new IllegalStateException("Corrupt run length: " + run);
+                }
+                for (int end = i + run; i < end; i++) {
+                    frame[base + i] ^= delta;
+                }
+            }
+        }
+
+        if (in.position() != start + HEADER_BYTES + length) {
+            throw new IllegalStateException("Frame length mismatch");
+        }
+        return true;
+    }
+
+    public static void encodeKeys (int mask, ByteBuffer out) {
+        out.put(MSG_KEYS);
+        out.putShort((short) mask);
+    }
+
+    private static boolean rowEquals (byte[] a, byte[] b, int base) {
+        for (int i = base; i < base + ROW_BYTES; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+}
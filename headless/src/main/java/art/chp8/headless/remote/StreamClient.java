@@ -0,0 +1,118 @@
+package art.chp8.headless.remote;
+
+import art.chp8.Processor;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+Reference client for StreamServer. Usable from code (e.g. tests against localhost) or from the command line:
+
+    StreamClient <host> <port>
+
+prints every received frame as text and reads keypad masks from standard input, one hex value per line (e.g. "20" holds key 5).
+ */
+public class StreamClient implements Closeable {
+    private final SocketChannel channel;
+    private final byte[] frame = new byte[Processor.PACKED_PIXELS_BYTES];
+    private final ByteBuffer in = ByteBuffer.allocateDirect(DeltaCodec.MAX_FRAME_MESSAGE_BYTES * 4);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(DeltaCodec.KEYS_MESSAGE_BYTES);
+
+    public StreamClient (InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        in.limit(0);
+    }
+
+    /***
+     * Blocks until the next frame update arrives and applies it.
+     *
+     * @return false if the server closed the connection
+     */
+    public boolean readFrame () throws IOException {
+        while (!DeltaCodec.decode(in, frame)) {
+            in.compact();
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) return false;
+        }
+        return true;
+    }
+
+    /*
+    Packed framebuffer as of the last readFrame, in the Processor.packPixels layout
+     */
+    public byte[] getFrame () {
+        return frame;
+    }
+
+    public boolean isPixelSet (int x, int y) {
+        int packed = frame[y * DeltaCodec.ROW_BYTES + x / 8];
+        return (packed & (0x80 >>> (x % 8))) != 0;
+    }
+
+    public synchronized void sendKeys (int mask) throws IOException {
+        out.clear();
+        DeltaCodec.encodeKeys(mask, out);
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    @Override
+    public void close () throws IOException {
+        channel.close();
+    }
+
+    public static void main (String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: StreamClient <host> <port>");
+            System.exit(2);
+        }
+
+        try (StreamClient client = new StreamClient(new InetSocketAddress(args[0], Integer.parseInt(args[1])))) {
+            Thread input = new Thread(() -> forwardKeys(client), "stream-client-input");
+            input.setDaemon(true);
+            input.start();
+
+            StringBuilder text = new StringBuilder();
+            while (client.readFrame()) {
+                text.setLength(0);
+                text.append("\033[H"); // cursor home, redraw in place
+                for (int y = 0; y < Processor.SCREEN_HEIGHT; y++) {
+                    for (int x = 0; x < Processor.SCREEN_WIDTH; x++) {
+                        text.append(client.isPixelSet(x, y) ? '#' : '.');
+                    }
+                    text.append('\n');
+                }
+                System.out.print(text);
+                System.out.flush();
+            }
+        }
+    }
+
+    private static void forwardKeys (StreamClient client) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                try {
+                    client.sendKeys(Integer.parseInt(line, 16));
+                } catch (NumberFormatException e) {
+                    System.err.println("Expected a hex keypad mask, got: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Stopped sending keys: " + e.getMessage());
+        }
+    }
+}
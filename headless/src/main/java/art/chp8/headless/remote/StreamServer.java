@@ -0,0 +1,166 @@
+package art.chp8.headless.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+Serves emulator sessions to remote clients, one fresh emulator per connection, all on a single thread.
+The thread multiplexes every socket through one Selector and steps all sessions once per frame, sending each client
+only the rows that changed since the last frame it received (see DeltaCodec).
+ */
+public class StreamServer implements Closeable {
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final List<StreamSession> sessions = new ArrayList<>();
+
+    private final byte[] rom;
+    private final int cyclesPerFrame;
+    private final long frameNanos;
+
+    private volatile boolean running = true;
+
+    public StreamServer (InetSocketAddress address, byte[] rom, int cyclesPerFrame, int framesPerSecond) throws IOException {
+        this.rom = rom;
+        this.cyclesPerFrame = cyclesPerFrame;
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort () {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getSessionCount () {
+        return sessions.size();
+    }
+
+    /*
+    Blocks until close() is called from another thread
+     */
+    public void run () throws IOException {
+        long nextFrame = System.nanoTime();
+
+        while (running) {
+            long waitNanos = nextFrame - System.nanoTime();
+            if (waitNanos > 0) {
+                selector.select(Math.max(1, waitNanos / 1_000_000L));
+            } else {
+                selector.selectNow();
+            }
+
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                handle(key);
+            }
+
+            long now = System.nanoTime();
+            if (now - nextFrame >= 0) {
+                stepSessions();
+                nextFrame += frameNanos;
+                // if we fell far behind, drop the missed frames instead of running them back to back
+                if (now - nextFrame > frameNanos * 4) {
+                    nextFrame = now + frameNanos;
+                }
+            }
+        }
+
+        for (StreamSession session : sessions) {
+            session.close();
+        }
+        sessions.clear();
+        serverChannel.close();
+        selector.close();
+    }
+
+    private void handle (SelectionKey key) {
+        if (!key.isValid()) return;
+
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        StreamSession session = (StreamSession) key.attachment();
+        try {
+            if (key.isReadable() && !session.read()) {
+                drop(session);
+                return;
+            }
+            if (key.isValid() && key.isWritable()) {
+                session.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Dropping client: " + e.getMessage());
+            drop(session);
+        }
+    }
+
+    private void accept () {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) return;
+
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+
+            StreamSession session = new StreamSession(channel, key, rom);
+            key.attach(session);
+            sessions.add(session);
+        } catch (IOException | RuntimeException e) {
+            // e.g. the emulator failing to load the ROM: only this client is turned away
+            System.err.println("Failed to accept client: " + e.getMessage());
+            closeQuietly(channel);
+        }
+    }
+
+    private void stepSessions () {
+        for (int i = sessions.size() - 1; i >= 0; i--) {
+            StreamSession session = sessions.get(i);
+            try {
+                session.step(cyclesPerFrame);
+            } catch (Exception e) {
+                // an emulator crash only ends that client's session
+                System.err.println("Dropping client: " + e.getMessage());
+                drop(session);
+            }
+        }
+    }
+
+    // closing the channel also cancels its selection key, if it got one
+    private static void closeQuietly (SocketChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to do with this client
+        }
+    }
+
+    private void drop (StreamSession session) {
+        session.close();
+        sessions.remove(session);
+    }
+
+    @Override
+    public void close () {
+        running = false;
+        selector.wakeup();
+    }
+}
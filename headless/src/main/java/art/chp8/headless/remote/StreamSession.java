@@ -0,0 +1,82 @@
+package art.chp8.headless.remote;
+
+import art.chp8.Processor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/*
+One connected client and the emulator it is watching. Only touched by the server thread.
+ */
+class StreamSession {
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Processor processor = new Processor();
+
+    private final byte[] current = new byte[Processor.PACKED_PIXELS_BYTES];
+    // what the client has been sent, deltas are computed against this rather than the previous emulated frame
+    private final byte[] sent = new byte[Processor.PACKED_PIXELS_BYTES];
+
+    // both buffers are allocated once per session and reused for every message
+    private final ByteBuffer out = ByteBuffer.allocateDirect(DeltaCodec.MAX_FRAME_MESSAGE_BYTES);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64);
+
+    StreamSession (SocketChannel channel, SelectionKey key, byte[] rom) {
+        this.channel = channel;
+        this.key = key;
+        processor.loadROM(rom);
+        out.limit(0);
+    }
+
+    /***
+     *
+     * @return false if the client disconnected
+     */
+    boolean read () throws IOException {
+        if (channel.read(in) < 0) {
+            return false;
+        }
+
+        in.flip();
+        while (in.remaining() >= DeltaCodec.KEYS_MESSAGE_BYTES) {
+            byte type = in.get();
+            if (type != DeltaCodec.MSG_KEYS) {
+                throw new IOException("Unexpected message type: " + type);
+            }
+            processor.getKeypad().setPressedMask(in.getShort() & 0xFFFF);
+        }
+        in.compact();
+        return true;
+    }
+
+    void step (int cycles) throws IOException {
+        for (int i = 0; i < cycles; i++) {
+            processor.tick();
+        }
+
+        // a slow client skips frames instead of queueing them, it gets the accumulated changes once it catches up
+        if (out.hasRemaining()) return;
+
+        processor.packPixels(current);
+        out.clear();
+        DeltaCodec.encode(sent, current, out);
+        out.flip();
+        flush();
+    }
+
+    void flush () throws IOException {
+        channel.write(out);
+        key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    void close () {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to do with this client
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package art.chp8.headless.sessions;
+
+import art.chp8.Processor;
+
+/*
+One hosted emulator. Stepped by SessionScheduler workers (never by two at once); everything the control API
+changes goes through volatile fields that the worker picks up before its next slice.
+ */
+public class Session {
+    public enum State { RUNNING, PAUSED, CRASHED }
+
+    // a session that was starved catches up by at most this much, instead of running a long burst
+    private static final long MAX_CATCH_UP_NANOS = 50_000_000L;
+
+    private final int id;
+    private final String romName;
+    private final Processor processor;
+
+    private volatile int cyclesPerSecond;
+    private volatile int pendingKeys;
+    private volatile State state = State.RUNNING;
+    private volatile String failure;
+
+    // owned by whichever worker is running the session
+    private long lastRunNanos = -1;
+    private double cycleCredit;
+
+    private volatile long executedCycles;
+    private volatile long busyNanos;
+
+    /***
+     *
+     * @param processor Processor with the ROM already loaded
+     */
+    Session (int id, String romName, Processor processor, int cyclesPerSecond) {
+        this.id = id;
+        this.romName = romName;
+        this.processor = processor;
+        this.cyclesPerSecond = cyclesPerSecond;
+    }
+
+    /*
+    Runs as many instructions as the time since the last slice allows at this session's speed
+     */
+    void runSlice (long nowNanos) {
+        if (state != State.RUNNING) {
+            lastRunNanos = -1;
+            return;
+        }
+        if (lastRunNanos < 0) {
+            lastRunNanos = nowNanos;
+            return;
+        }
+
+        long elapsed = Math.min(nowNanos - lastRunNanos, MAX_CATCH_UP_NANOS);
+        lastRunNanos = nowNanos;
+        cycleCredit += cyclesPerSecond * (elapsed / 1e9);
+
+        int cycles = (int) cycleCredit;
+        if (cycles == 0) return;
+        cycleCredit -= cycles;
+
+        processor.getKeypad().setPressedMask(pendingKeys);
+        long started = System.nanoTime();
+        try {
+            for (int i = 0; i < cycles; i++) {
+                processor.tick();
+            }
+        } catch (Exception e) {
+            failure = String.valueOf(e.getMessage());
+            state = State.CRASHED;
+        }
+        busyNanos += System.nanoTime() - started;
+        executedCycles += cycles;
+    }
+
+    public int getId () {
+        return id;
+    }
+
+    public String getRomName () {
+        return romName;
+    }
+
+    public State getState () {
+        return state;
+    }
+
+    public String getFailure () {
+        return failure;
+    }
+
+    public int getCyclesPerSecond () {
+        return cyclesPerSecond;
+    }
+
+    public void setCyclesPerSecond (int cyclesPerSecond) {
+        this.cyclesPerSecond = cyclesPerSecond;
+    }
+
+    public void setKeys (int mask) {
+        this.pendingKeys = mask & 0xFFFF;
+    }
+
+    public void pause () {
+        if (state == State.RUNNING) state = State.PAUSED;
+    }
+
+    public void resume () {
+        if (state == State.PAUSED) state = State.RUNNING;
+    }
+
+    public long getExecutedCycles () {
+        return executedCycles;
+    }
+
+    /*
+    Wall time spent executing this session's instructions on worker threads, close to its CPU time
+     */
+    public long getBusyNanos () {
+        return busyNanos;
+    }
+}
@@ -0,0 +1,185 @@
+package art.chp8.headless.sessions;
+
+import art.chp8.headless.HeadlessLauncher;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Line-based control API for a SessionScheduler, bound to the loopback interface only. One command per line:
+
+    create <rom> [cycles-per-second]   -> ok <id>
+    destroy <id>                       -> ok
+    keys <id> <hex mask>               -> ok
+    speed <id> <cycles-per-second>     -> ok
+    pause <id> / resume <id>           -> ok
+    list                               -> one line per session, then "end"
+    stats                              -> sessions=<n> ticks=<n> overrun-ticks=<n> heap-used-kb=<n>
+    quit
+
+Failures answer "error <message>".
+ */
+public class SessionControlServer implements Closeable {
+    public static final int DEFAULT_CYCLES_PER_SECOND = 700;
+
+    private final SessionScheduler scheduler;
+    private final ServerSocket serverSocket;
+    // sessions of the same ROM share its bytes
+    private final Map<String, byte[]> roms = new ConcurrentHashMap<>();
+
+    public SessionControlServer (SessionScheduler scheduler, int port) throws IOException {
+        this.scheduler = scheduler;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort () {
+        return serverSocket.getLocalPort();
+    }
+
+    /*
+    Accepts control connections until closed, one thread per connection
+     */
+    public void run () throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+                throw e;
+            }
+
+            Thread connection = new Thread(() -> serve(socket), "session-control");
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+
+    private void serve (Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.equals("quit")) break;
+
+                try {
+                    execute(line.split("\\s+"), out);
+                } catch (RuntimeException e) {
+                    // bad arguments, but also e.g. a ROM too large to load: answer instead of dropping the connection
+                    out.println("error " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            // client went away, its sessions keep running until destroyed
+        }
+    }
+
+    private void execute (String[] command, PrintWriter out) {
+        switch (command[0]) {
+            case "create": {
+                argument(command, 1);
+                int cyclesPerSecond = command.length > 2 ? parseCyclesPerSecond(command[2]) : DEFAULT_CYCLES_PER_SECOND;
+                byte[] rom = rom(command[1]);
+                Session session = scheduler.create(command[1], rom, cyclesPerSecond);
+                // only cached once it loaded, so a ROM that cannot run is not kept around
+                roms.putIfAbsent(command[1], rom);
+                out.println("ok " + session.getId());
+                break;
+            }
+            case "destroy":
+                if (!scheduler.destroy(parseId(command))) {
+                    throw new IllegalArgumentException("No session " + command[1]);
+                }
+                out.println("ok");
+                break;
+            case "keys":
+                session(command).setKeys(Integer.parseInt(argument(command, 2), 16));
+                out.println("ok");
+                break;
+            case "speed":
+                session(command).setCyclesPerSecond(parseCyclesPerSecond(argument(command, 2)));
+                out.println("ok");
+                break;
+            case "pause":
+                session(command).pause();
+                out.println("ok");
+                break;
+            case "resume":
+                session(command).resume();
+                out.println("ok");
+                break;
+            case "list":
+                for (Session session : scheduler.getSessions()) {
+                    out.printf("%d %s state=%s cps=%d cycles=%d cpu-ms=%.3f%s%n",
+                        session.getId(), session.getRomName(), session.getState(), session.getCyclesPerSecond(),
+                        session.getExecutedCycles(), session.getBusyNanos() / 1e6,
+                        session.getFailure() == null ? "" : " failure=" + session.getFailure());
+                }
+                out.println("end");
+                break;
+            case "stats": {
+                Runtime runtime = Runtime.getRuntime();
+                out.printf("sessions=%d ticks=%d overrun-ticks=%d heap-used-kb=%d%n",
+                    scheduler.getSessionCount(), scheduler.getTicks(), scheduler.getOverrunTicks(),
+                    (runtime.totalMemory() - runtime.freeMemory()) / 1024);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command[0]);
+        }
+    }
+
+    private byte[] rom (String name) {
+        byte[] cached = roms.get(name);
+        if (cached != null) return cached;
+        try {
+            return HeadlessLauncher.readRom(name);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+    private Session session (String[] command) {
+        Session session = scheduler.get(parseId(command));
+        if (session == null) {
+            throw new IllegalArgumentException("No session " + command[1]);
+        }
+        return session;
+    }
+
+    private static int parseId (String[] command) {
+        return Integer.parseInt(argument(command, 1));
+    }
+
+    private static int parseCyclesPerSecond (String value) {
+        int cyclesPerSecond = Integer.parseInt(value);
+        if (cyclesPerSecond < 0) {
+            throw new IllegalArgumentException("Cycles per second must not be negative");
+        }
+        return cyclesPerSecond;
+    }
+
+    private static String argument (String[] command, int index) {
+        if (command.length <= index) {
+            throw new IllegalArgumentException("Missing argument for " + command[0]);
+        }
+        return command[index];
+    }
+
+    @Override
+    public void close () throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,153 @@
+package art.chp8.headless.sessions;
+
+import art.chp8.Processor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Runs every session on a shared worker pool, paced by one fixed-rate tick.
+
+Each tick, the workers take sessions one by one from a shared cursor and give each a slice sized by the time since its
+last slice and its own cycles-per-second target. If the host is overcommitted the tick runs out of time before all
+sessions had a turn; the next tick then starts with the ones that were skipped, so every session gets the same share.
+Sessions that fell behind catch up only a bounded amount (see Session), so overload slows everyone down evenly rather
+than turning into bursts.
+ */
+public class SessionScheduler {
+    public static final int TICKS_PER_SECOND = 60;
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private volatile boolean membershipChanged;
+    private Session[] snapshot = new Session[0];
+
+    private final int workerCount;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService ticker;
+
+    // first session (in snapshot order) of the next tick
+    private int rotation;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong overrunTicks = new AtomicLong();
+
+    public SessionScheduler (int workerCount) {
+        this.workerCount = workerCount;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "session-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start () {
+        ticker.scheduleAtFixedRate(this::tick, 0, TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public Session create (String romName, byte[] rom, int cyclesPerSecond) {
+        // load first, so a ROM that does not fit fails before it takes up an id
+        Processor processor = new Processor();
+        processor.loadROM(rom);
+
+        Session session = new Session(nextId.getAndIncrement(), romName, processor, cyclesPerSecond);
+        sessions.put(session.getId(), session);
+        membershipChanged = true;
+        return session;
+    }
+
+    public boolean destroy (int id) {
+        boolean removed = sessions.remove(id) != null;
+        if (removed) membershipChanged = true;
+        return removed;
+    }
+
+    public Session get (int id) {
+        return sessions.get(id);
+    }
+
+    public Iterable<Session> getSessions () {
+        return sessions.values();
+    }
+
+    public int getSessionCount () {
+        return sessions.size();
+    }
+
+    public long getTicks () {
+        return ticks.get();
+    }
+
+    // ticks in which not every session got a slice
+    public long getOverrunTicks () {
+        return overrunTicks.get();
+    }
+
+    private void tick () {
+        if (membershipChanged) {
+            membershipChanged = false;
+            snapshot = sessions.values().toArray(new Session[0]);
+            rotation = 0;
+        }
+
+        Session[] current = snapshot;
+        int count = current.length;
+        ticks.incrementAndGet();
+        if (count == 0) return;
+
+        long deadline = System.nanoTime() + TICK_NANOS;
+        int start = rotation;
+        AtomicInteger cursor = new AtomicInteger();
+        int tasks = Math.min(workerCount, count);
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        for (int t = 0; t < tasks; t++) {
+            workers.execute(() -> {
+                try {
+                    int index;
+                    while ((index = cursor.getAndIncrement()) < count) {
+                        long now = System.nanoTime();
+                        if (now - deadline > 0) break;
+                        current[(start + index) % count].runSlice(now);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // each worker overshoots the cursor by one when it stops
+        int served = Math.min(cursor.get() - tasks, count);
+        if (served < count) {
+            overrunTicks.incrementAndGet();
+        }
+        rotation = (start + Math.max(served, 0)) % count;
+    }
+
+    public void shutdown () {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -3,10 +3,58 @@ package art.chp8.lwjgl3;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
 import art.chp8.Emulator;
+import art.chp8.WallEmulator;
+
+import java.util.Arrays;
 
 public class Lwjgl3Launcher {
+    private static final String USAGE =
+        "Usage: chip8 [--wall <count> [rom...]]\n" +
+        "  (no arguments)    run the ROM from emulation_config.xml\n" +
+        "  --wall <count>    show <count> emulators in one window, cycling through the given ROMs\n" +
+        "                    (default: the configured one)\n";
+
     public static void main(String[] args) {
-        new Lwjgl3Application(new Emulator(), getDefaultConfiguration());
+        if (args.length == 0) {
+            new Lwjgl3Application(new Emulator(), getDefaultConfiguration());
+            return;
+        }
+
+        int instances;
+        try {
+            instances = parseWallCount(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        String[] roms = Arrays.copyOfRange(args, 2, args.length);
+
+        Lwjgl3ApplicationConfiguration configuration = getDefaultConfiguration();
+        configuration.setTitle("Chip-8 wall (" + instances + ")");
+        configuration.setWindowedMode(1280, 720);
+        new Lwjgl3Application(new WallEmulator(roms, instances), configuration);
+    }
+
+    private static int parseWallCount (String[] args) {
+        if (!args[0].equals("--wall")) {
+            throw new IllegalArgumentException("Unknown option: " + args[0]);
+        }
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Missing value for --wall");
+        }
+
+        int instances;
+        try {
+            instances = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--wall count must be a number: " + args[1]);
+        }
+        if (instances < 1) {
+            throw new IllegalArgumentException("--wall count must be positive");
+        }
+        return instances;
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {